@@ -0,0 +1,41 @@
+package com.igorternyuk.benchmarks;
+
+import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.board.FenParser;
+import com.igorternyuk.engine.perft.PerftPosition;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Board construction, which also generates the legal moves of both players.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class FenState {
+        @Param({"STARTING_POSITION", "KIWIPETE", "MIDDLE_GAME", "ENDGAME"})
+        private String position;
+        private String fen;
+
+        @Setup
+        public void setUp() {
+            this.fen = PerftPosition.valueOf(this.position).getFen();
+        }
+    }
+
+    @Benchmark
+    public Board createStandardBoard() {
+        return Board.createStandardBoard();
+    }
+
+    @Benchmark
+    public Board createBoardFromFen(final FenState state) {
+        return FenParser.createBoard(state.fen);
+    }
+}
@@ -0,0 +1,35 @@
+package com.igorternyuk.benchmarks;
+
+import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.perft.PerftPosition;
+import com.igorternyuk.engine.player.ai.BoardEvaluator;
+import com.igorternyuk.engine.player.ai.StandardBoardEvaluator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Static evaluation of a position as done at every leaf of the search.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EvaluationBenchmark {
+    @Param({"STARTING_POSITION", "KIWIPETE", "MIDDLE_GAME", "ENDGAME"})
+    private String position;
+    private Board board;
+    private final BoardEvaluator evaluator = new StandardBoardEvaluator();
+
+    @Setup
+    public void setUp() {
+        this.board = PerftPosition.valueOf(this.position).createBoard();
+    }
+
+    @Benchmark
+    public long evaluate() {
+        return this.evaluator.evaluate(this.board, 0);
+    }
+}
@@ -0,0 +1,64 @@
+package com.igorternyuk.benchmarks;
+
+import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.moves.Move;
+import com.igorternyuk.engine.perft.PerftPosition;
+import com.igorternyuk.engine.player.ai.LazySmp;
+import com.igorternyuk.engine.player.ai.TimeControl;
+import com.igorternyuk.engine.player.ai.TranspositionTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to depth of Lazy SMP for a growing number of threads, the counterpart of ParallelSearchBenchmark for the
+ * search that shares nothing but the transposition table. One thread is the serial search. The table is cleared
+ * before every search, so the helpers only profit from what they store during it. The threads are started once per
+ * trial, as the GUI keeps them from one move to the next.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LazySmpBenchmark {
+    @Param({"STARTING_POSITION", "KIWIPETE", "MIDDLE_GAME"})
+    private String position;
+    @Param({"1", "2", "4"})
+    private int threads;
+    @Param({"5"})
+    private int depth;
+    private Board board;
+    private TranspositionTable transpositionTable;
+    private LazySmp lazySmp;
+    private PrintStream out;
+
+    @Setup
+    public void setUp() {
+        this.board = PerftPosition.valueOf(this.position).createBoard();
+        this.transpositionTable = new TranspositionTable();
+        this.lazySmp = new LazySmp(TimeControl.fixedDepth(this.depth), this.transpositionTable, this.threads);
+        //The search reports every iteration to the console
+        this.out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.lazySmp.shutdown();
+        System.setOut(this.out);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTranspositionTable() {
+        this.transpositionTable.clear();
+    }
+
+    @Benchmark
+    public Move search() {
+        return this.lazySmp.execute(this.board);
+    }
+}
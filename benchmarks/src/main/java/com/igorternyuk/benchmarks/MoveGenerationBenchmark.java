@@ -0,0 +1,54 @@
+package com.igorternyuk.benchmarks;
+
+import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.moves.Move;
+import com.igorternyuk.engine.perft.PerftPosition;
+import com.igorternyuk.engine.pieces.Piece;
+import com.igorternyuk.engine.player.Player;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Move generation of every piece of the side to move and making each of its moves.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MoveGenerationBenchmark {
+    @Param({"STARTING_POSITION", "KIWIPETE", "MIDDLE_GAME", "ENDGAME"})
+    private String position;
+    private Board board;
+    private List<Piece> pieces;
+    private List<Move> moves;
+
+    @Setup
+    public void setUp() {
+        this.board = PerftPosition.valueOf(this.position).createBoard();
+        this.pieces = new ArrayList<>(this.board.getCurrentPlayer().getActivePieces());
+        this.moves = new ArrayList<>(this.board.getCurrentPlayer().getLegalMoves());
+    }
+
+    @Benchmark
+    public void pieceLegalMoves(final Blackhole blackhole) {
+        for (final Piece piece : this.pieces) {
+            final Collection<Move> legalMoves = piece.getLegalMoves(this.board);
+            blackhole.consume(legalMoves);
+        }
+    }
+
+    @Benchmark
+    public void playerMakeMove(final Blackhole blackhole) {
+        final Player player = this.board.getCurrentPlayer();
+        for (final Move move : this.moves) {
+            blackhole.consume(player.makeMove(move));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.igorternyuk.benchmarks;
+
+import com.igorternyuk.engine.moves.Move;
+import com.igorternyuk.engine.perft.PerftPosition;
+import com.igorternyuk.engine.player.ai.MoveSorter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ordering the legal moves of the side to move with each of the move sorters.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MoveSorterBenchmark {
+    @Param({"STARTING_POSITION", "KIWIPETE", "MIDDLE_GAME", "ENDGAME"})
+    private String position;
+    @Param({"STANDARD", "EXPENSIVE", "SMART"})
+    private MoveSorter moveSorter;
+    private List<Move> moves;
+
+    @Setup
+    public void setUp() {
+        this.moves = new ArrayList<>(PerftPosition.valueOf(this.position).createBoard().getCurrentPlayer()
+                .getLegalMoves());
+    }
+
+    @Benchmark
+    public Collection<Move> sort() {
+        return this.moveSorter.sort(this.moves);
+    }
+}
@@ -0,0 +1,59 @@
+package com.igorternyuk.benchmarks;
+
+import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.moves.Move;
+import com.igorternyuk.engine.perft.PerftPosition;
+import com.igorternyuk.engine.player.ai.AlphaBeta;
+import com.igorternyuk.engine.player.ai.SplitMode;
+import com.igorternyuk.engine.player.ai.TimeControl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to depth of the fork/join search modes for a growing number of pool threads. The serial time to compare
+ * the speedup with is SearchBenchmark at the same depth: -p depth=5.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelSearchBenchmark {
+    @Param({"STARTING_POSITION", "KIWIPETE", "MIDDLE_GAME"})
+    private String position;
+    @Param({"ROOT_MOVES", "YOUNG_BROTHERS_WAIT"})
+    private String splitMode;
+    @Param({"1", "2", "4"})
+    private int threads;
+    @Param({"5"})
+    private int depth;
+    private Board board;
+    private ForkJoinPool pool;
+    private PrintStream out;
+
+    @Setup
+    public void setUp() {
+        this.board = PerftPosition.valueOf(this.position).createBoard();
+        this.pool = new ForkJoinPool(this.threads);
+        //The search reports every iteration to the console
+        this.out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.pool.shutdown();
+        System.setOut(this.out);
+    }
+
+    @Benchmark
+    public Move search() {
+        return new AlphaBeta(TimeControl.fixedDepth(this.depth), this.pool, SplitMode.valueOf(this.splitMode))
+                .execute(this.board);
+    }
+}
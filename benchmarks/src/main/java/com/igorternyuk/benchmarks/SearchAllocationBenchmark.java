@@ -0,0 +1,70 @@
+package com.igorternyuk.benchmarks;
+
+import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.moves.Move;
+import com.igorternyuk.engine.perft.PerftPosition;
+import com.igorternyuk.engine.player.ai.AlphaBeta;
+import com.igorternyuk.engine.player.ai.TranspositionTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation of the AlphaBeta search, meant to be run with the GC profiler:
+ * java -jar target/benchmarks.jar SearchAllocationBenchmark -prof gc
+ * One AlphaBeta is reused for every search, so its per-ply stacks are already in place.
+ * What is left in gc.alloc.rate.norm is the cost of setting up a search, which must not grow with the number of
+ * nodes: comparing it with the nodes counter (the total over the measured searches) across the depths shows
+ * whether anything allocates per node.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchAllocationBenchmark {
+    @Param({"KIWIPETE", "MIDDLE_GAME"})
+    private String position;
+    @Param({"3", "4", "5"})
+    private int depth;
+    private Board board;
+    private TranspositionTable transpositionTable;
+    private AlphaBeta alphaBeta;
+    private PrintStream out;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class SearchCounters {
+        public long nodes;
+    }
+
+    @Setup
+    public void setUp() {
+        this.board = PerftPosition.valueOf(this.position).createBoard();
+        this.transpositionTable = new TranspositionTable();
+        this.alphaBeta = new AlphaBeta(this.depth, this.transpositionTable);
+        //The search reports every iteration to the console
+        this.out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(this.out);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTranspositionTable() {
+        this.transpositionTable.clear();
+    }
+
+    @Benchmark
+    public Move search(final SearchCounters counters) {
+        final Move move = this.alphaBeta.execute(this.board);
+        counters.nodes += this.alphaBeta.getNodesSearched();
+        return move;
+    }
+}
@@ -0,0 +1,56 @@
+package com.igorternyuk.benchmarks;
+
+import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.moves.Move;
+import com.igorternyuk.engine.perft.PerftPosition;
+import com.igorternyuk.engine.player.ai.AlphaBeta;
+import com.igorternyuk.engine.player.ai.TranspositionTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full fixed-depth AlphaBeta searches. The transposition table is cleared before every search so that each one
+ * starts cold, as a search of a new game position would.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+    @Param({"STARTING_POSITION", "KIWIPETE", "MIDDLE_GAME", "ENDGAME"})
+    private String position;
+    @Param({"4"})
+    private int depth;
+    private Board board;
+    private TranspositionTable transpositionTable;
+    private PrintStream out;
+
+    @Setup
+    public void setUp() {
+        this.board = PerftPosition.valueOf(this.position).createBoard();
+        this.transpositionTable = new TranspositionTable();
+        //The search reports every iteration to the console
+        this.out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(this.out);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTranspositionTable() {
+        this.transpositionTable.clear();
+    }
+
+    @Benchmark
+    public Move search() {
+        return new AlphaBeta(this.depth, this.transpositionTable).execute(this.board);
+    }
+}
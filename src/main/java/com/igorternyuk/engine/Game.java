@@ -2,14 +2,10 @@ package com.igorternyuk.engine;
 
 import com.igorternyuk.engine.board.Board;
 import com.igorternyuk.engine.board.GameType;
-import com.igorternyuk.engine.board.Location;
-import com.igorternyuk.engine.board.Tile;
 import com.igorternyuk.engine.moves.Move;
 import com.igorternyuk.engine.moves.MoveLog;
 import com.igorternyuk.engine.moves.MoveTransition;
 
-import java.util.Map;
-
 /**
  * Created by igor on 07.03.18.
  */
@@ -141,9 +137,9 @@ public class Game {
     }
 
     private boolean checkThresholdRepetition(){
-        Map<Location, Tile> currentGameBoard = this.chessBoard.getGameBoard();
+        final long currentPositionKey = this.chessBoard.getZobristKey();
         long occurenceCount = this.moveLog.getMoves().stream().filter( move ->
-                move.getBoard().getGameBoard().equals(currentGameBoard)).count();
+                move.getBoard().getZobristKey() == currentPositionKey).count();
         //System.out.println("Current position occurence count = " + occurenceCount);
         return (occurenceCount + 1) >= REPETITION_THRESHOLD;
     }
@@ -0,0 +1,268 @@
+package com.igorternyuk.engine.board;
+
+import com.igorternyuk.engine.Alliance;
+import com.igorternyuk.engine.pieces.PieceType;
+
+/**
+ * Precomputed attack sets in the square numbering of {@link BitBoard}. Knights, kings and pawns use plain tables,
+ * rooks and bishops use magic bitboards: the relevant blockers are multiplied by a magic number whose upper bits
+ * index a table with the attack set for exactly that blocker pattern.
+ */
+public final class Attacks {
+    private static final int NUMBER_OF_SQUARES = BoardUtils.TOTAL_NUMBER_OF_TILES;
+    private static final int[][] KNIGHT_OFFSETS = {
+            {-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}
+    };
+    private static final int[][] KING_OFFSETS = {
+            {-1, -1}, {-1, 1}, {1, -1}, {1, 1}, {-1, 0}, {0, 1}, {1, 0}, {0, -1}
+    };
+    private static final int[][] ROOK_DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+    //Found by trying sparse random numbers until one maps every blocker pattern without a harmful collision
+    private static final long[] ROOK_MAGIC_NUMBERS = {
+            0x0A80004000108020L, 0x00C0002000100140L, 0x0100200010090041L, 0x0100042010000900L,
+            0x0200041002002009L, 0x0200010884020050L, 0x0400085004098211L, 0x0100084022008900L,
+            0x081480002080400AL, 0x0180400040201002L, 0x1003001100432000L, 0x0825000900201002L,
+            0x0120800400080080L, 0x0000800200800400L, 0x1804009001080204L, 0x2003000202438100L,
+            0x0C1C208000400081L, 0x0804850021044000L, 0xE0A0818020005001L, 0x5200808010000800L,
+            0x0040828004010800L, 0x200C008080040200L, 0x2084040001821008L, 0x00484A0004008C41L,
+            0x0A60208480084004L, 0x0A06050200402080L, 0x0140200080801000L, 0xA008002101001000L,
+            0x0806080080040080L, 0x0004000202001008L, 0x0004020400080110L, 0x2000204200010084L,
+            0x0180804010800020L, 0x0010004002402000L, 0x80A0801042002200L, 0x1802801002800801L,
+            0x4808000A80800400L, 0x2C22008002800400L, 0x3020384184000210L, 0x8021089902000044L,
+            0x0800800040088020L, 0x002000400082802AL, 0x0052804200160020L, 0x0214210010010008L,
+            0xC1020004100A0020L, 0x0064008002008004L, 0x0020215012040048L, 0x0000008C04420015L,
+            0xD0E0220090410200L, 0x0028209040010500L, 0x0210040020080020L, 0x0000400812002200L,
+            0x0880040008008080L, 0x0042001124680200L, 0x0008085021020400L, 0x00C0108402710600L,
+            0x4100148009002041L, 0xA002001106402082L, 0x4B0820120040800AL, 0x0010848810002101L,
+            0x0002002005481082L, 0xC001002E24002811L, 0x1050010210208804L, 0x00840C01023080C2L
+    };
+    private static final long[] BISHOP_MAGIC_NUMBERS = {
+            0x00C1010800890041L, 0x8309081808424002L, 0xC008080040880080L, 0x4802408900000181L,
+            0x800410A842404020L, 0x4000822020042010L, 0x00A4808809400040L, 0x8900130090242006L,
+            0x0404090901040400L, 0x1000020401040110L, 0x8000044800830004L, 0x0002040702044000L,
+            0x86D0042420008001L, 0x0021089044200B02L, 0x0000020802080411L, 0x100080410410020AL,
+            0x01100404E0020450L, 0x005000480208C404L, 0x800210B004224100L, 0x4022080440110000L,
+            0x1004040200A20015L, 0x0881400208024000L, 0x0004100064040404L, 0x8000300284140208L,
+            0x0043081090204841L, 0x0861090020181100L, 0x0000410010010206L, 0x020400880C020880L,
+            0x0190840120802000L, 0x4014002284100402L, 0x8041020008480410L, 0x0504009401088080L,
+            0x1010040400119000L, 0x2804022000080112L, 0x0020209000181022L, 0x0023008080480204L,
+            0x0020084880140020L, 0x1040880080211000L, 0x8810008090022200L, 0x0001004102419C00L,
+            0x2020842088402038L, 0x44010401204204C0L, 0x5802001044004820L, 0x8000020102442400L,
+            0x8020080101001010L, 0x6440102200204610L, 0x001030010102A043L, 0x001414404200404AL,
+            0x00840404040444C4L, 0x01002A0A02600000L, 0x8100008088210001L, 0x60000A00840441C0L,
+            0x20800030920A0000L, 0x0620408214051050L, 0x005114018802000EL, 0x0404100212202100L,
+            0x0004440044100441L, 0x040000220E022100L, 0x0020022100824100L, 0x0002110142050400L,
+            0x8040000051420200L, 0x0000200409300101L, 0x0020200490220040L, 0x0004241404002200L
+    };
+
+    private static final long[] KNIGHT_ATTACKS = createJumpingPieceAttacks(KNIGHT_OFFSETS);
+    private static final long[] KING_ATTACKS = createJumpingPieceAttacks(KING_OFFSETS);
+    private static final long[][] PAWN_ATTACKS = createPawnAttacks();
+    private static final Magic[] ROOK_MAGICS = createMagics(ROOK_DIRECTIONS, ROOK_MAGIC_NUMBERS);
+    private static final Magic[] BISHOP_MAGICS = createMagics(BISHOP_DIRECTIONS, BISHOP_MAGIC_NUMBERS);
+    private static final long[][] BETWEEN = new long[NUMBER_OF_SQUARES][NUMBER_OF_SQUARES];
+    private static final long[][] LINES = new long[NUMBER_OF_SQUARES][NUMBER_OF_SQUARES];
+
+    static {
+        fillLineTables(ROOK_DIRECTIONS);
+        fillLineTables(BISHOP_DIRECTIONS);
+    }
+
+    private static final class Magic {
+        private final long mask;
+        private final long magic;
+        private final int shift;
+        private final long[] attacks;
+
+        private Magic(final long mask, final long magic, final int shift, final long[] attacks) {
+            this.mask = mask;
+            this.magic = magic;
+            this.shift = shift;
+            this.attacks = attacks;
+        }
+
+        private long getAttacks(final long occupancy) {
+            return this.attacks[(int) (((occupancy & this.mask) * this.magic) >>> this.shift)];
+        }
+    }
+
+    private Attacks() {
+    }
+
+    public static long knightAttacks(final int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(final int square) {
+        return KING_ATTACKS[square];
+    }
+
+    //Squares a pawn of this alliance standing on the square captures on
+    public static long pawnAttacks(final Alliance alliance, final int square) {
+        return PAWN_ATTACKS[alliance.ordinal()][square];
+    }
+
+    public static long rookAttacks(final int square, final long occupancy) {
+        return ROOK_MAGICS[square].getAttacks(occupancy);
+    }
+
+    public static long bishopAttacks(final int square, final long occupancy) {
+        return BISHOP_MAGICS[square].getAttacks(occupancy);
+    }
+
+    public static long queenAttacks(final int square, final long occupancy) {
+        return rookAttacks(square, occupancy) | bishopAttacks(square, occupancy);
+    }
+
+    //Squares strictly between two squares on a common rank, file or diagonal, empty if they share none
+    public static long between(final int from, final int to) {
+        return BETWEEN[from][to];
+    }
+
+    //The whole rank, file or diagonal through both squares, empty if they share none
+    public static long line(final int from, final int to) {
+        return LINES[from][to];
+    }
+
+    //Attacks of every piece type but the pawn, whose captures depend on its alliance
+    public static long pieceAttacks(final PieceType pieceType, final int square, final long occupancy) {
+        switch (pieceType) {
+            case KNIGHT:
+                return knightAttacks(square);
+            case BISHOP:
+                return bishopAttacks(square, occupancy);
+            case ROOK:
+                return rookAttacks(square, occupancy);
+            case QUEEN:
+                return queenAttacks(square, occupancy);
+            case KING:
+                return kingAttacks(square);
+            default:
+                throw new RuntimeException("Pawn attacks depend on the alliance");
+        }
+    }
+
+    //Pieces of the alliance attacking the square, the piece bitboards of that alliance are indexed by piece type
+    static long attackersTo(final long[] pieces, final Alliance alliance, final int square, final long occupancy) {
+        final long queens = pieces[PieceType.QUEEN.ordinal()];
+        //A pawn of the other alliance on the square would capture exactly where the attacking pawns stand
+        return (pawnAttacks(SearchBoard.opponentOf(alliance), square) & pieces[PieceType.PAWN.ordinal()]) |
+                (knightAttacks(square) & pieces[PieceType.KNIGHT.ordinal()]) |
+                (kingAttacks(square) & pieces[PieceType.KING.ordinal()]) |
+                (bishopAttacks(square, occupancy) & (pieces[PieceType.BISHOP.ordinal()] | queens)) |
+                (rookAttacks(square, occupancy) & (pieces[PieceType.ROOK.ordinal()] | queens));
+    }
+
+    private static long[] createJumpingPieceAttacks(final int[][] offsets) {
+        final long[] attacks = new long[NUMBER_OF_SQUARES];
+        for (int square = 0; square < NUMBER_OF_SQUARES; ++square) {
+            final int x = BitBoard.getFile(square);
+            final int y = BitBoard.getRank(square);
+            for (final int[] offset : offsets) {
+                if (BoardUtils.isValidLocation(x + offset[0], y + offset[1])) {
+                    attacks[square] |= BitBoard.getSquareMask(BitBoard.getSquare(x + offset[0], y + offset[1]));
+                }
+            }
+        }
+        return attacks;
+    }
+
+    private static long[][] createPawnAttacks() {
+        final long[][] attacks = new long[Alliance.values().length][];
+        for (final Alliance alliance : Alliance.values()) {
+            attacks[alliance.ordinal()] = createJumpingPieceAttacks(new int[][]{
+                    {-1, alliance.getDirectionY()}, {1, alliance.getDirectionY()}
+            });
+        }
+        return attacks;
+    }
+
+    private static void fillLineTables(final int[][] directions) {
+        for (int square = 0; square < NUMBER_OF_SQUARES; ++square) {
+            for (final int[] direction : directions) {
+                final long line = ray(square, direction[0], direction[1]) | ray(square, -direction[0], -direction[1]) |
+                        BitBoard.getSquareMask(square);
+                long between = BitBoard.EMPTY;
+                int x = BitBoard.getFile(square) + direction[0];
+                int y = BitBoard.getRank(square) + direction[1];
+                while (BoardUtils.isValidLocation(x, y)) {
+                    final int target = BitBoard.getSquare(x, y);
+                    BETWEEN[square][target] = between;
+                    LINES[square][target] = line;
+                    between |= BitBoard.getSquareMask(target);
+                    x += direction[0];
+                    y += direction[1];
+                }
+            }
+        }
+    }
+
+    private static long ray(final int square, final int dx, final int dy) {
+        return slidingAttacks(square, BitBoard.EMPTY, new int[][]{{dx, dy}});
+    }
+
+    //Ray attacks stopping at the first blocker, only used to fill the magic tables
+    private static long slidingAttacks(final int square, final long occupancy, final int[][] directions) {
+        long attacks = BitBoard.EMPTY;
+        for (final int[] direction : directions) {
+            int x = BitBoard.getFile(square) + direction[0];
+            int y = BitBoard.getRank(square) + direction[1];
+            while (BoardUtils.isValidLocation(x, y)) {
+                final long mask = BitBoard.getSquareMask(BitBoard.getSquare(x, y));
+                attacks |= mask;
+                if ((occupancy & mask) != BitBoard.EMPTY) {
+                    break;
+                }
+                x += direction[0];
+                y += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    //Squares whose occupancy matters: the rays without the last square, which is attacked whatever stands on it
+    private static long relevantBlockers(final int square, final int[][] directions) {
+        long mask = BitBoard.EMPTY;
+        for (final int[] direction : directions) {
+            int x = BitBoard.getFile(square) + direction[0];
+            int y = BitBoard.getRank(square) + direction[1];
+            while (BoardUtils.isValidLocation(x + direction[0], y + direction[1])) {
+                mask |= BitBoard.getSquareMask(BitBoard.getSquare(x, y));
+                x += direction[0];
+                y += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    private static Magic[] createMagics(final int[][] directions, final long[] magicNumbers) {
+        final Magic[] magics = new Magic[NUMBER_OF_SQUARES];
+        for (int square = 0; square < NUMBER_OF_SQUARES; ++square) {
+            magics[square] = createMagic(square, directions, magicNumbers[square]);
+        }
+        return magics;
+    }
+
+    private static Magic createMagic(final int square, final int[][] directions, final long magicNumber) {
+        final long mask = relevantBlockers(square, directions);
+        final int bits = Long.bitCount(mask);
+        final int shift = Long.SIZE - bits;
+        final long[] attacks = new long[1 << bits];
+        final boolean[] isFilled = new boolean[attacks.length];
+        //Carry-rippler enumeration of every subset of the mask
+        long subset = BitBoard.EMPTY;
+        do {
+            final int index = (int) ((subset * magicNumber) >>> shift);
+            final long subsetAttacks = slidingAttacks(square, subset, directions);
+            if (isFilled[index] && attacks[index] != subsetAttacks) {
+                throw new RuntimeException("Magic number " + Long.toHexString(magicNumber) + " of square " + square +
+                        " maps different attacks to the same index");
+            }
+            attacks[index] = subsetAttacks;
+            isFilled[index] = true;
+            subset = (subset - mask) & mask;
+        } while (subset != BitBoard.EMPTY);
+        return new Magic(mask, magicNumber, shift, attacks);
+    }
+}
@@ -0,0 +1,105 @@
+package com.igorternyuk.engine.board;
+
+import com.igorternyuk.engine.Alliance;
+import com.igorternyuk.engine.pieces.Piece;
+import com.igorternyuk.engine.pieces.PieceType;
+
+import java.util.Collection;
+
+/**
+ * Bitboard view of a position: one 64-bit word per piece type and alliance plus occupancy words.
+ * Bit {@code y * 8 + x} corresponds to {@code BoardUtils.getLocation(x, y)}, so a8 is bit 0 and h1 is bit 63.
+ */
+public final class BitBoard {
+    public static final long EMPTY = 0L;
+    public static final int NUMBER_OF_ALLIANCES = Alliance.values().length;
+    public static final int NUMBER_OF_PIECE_TYPES = PieceType.values().length;
+
+    private final long[][] pieceBitBoards;
+    private final long[] allianceBitBoards;
+    private final long occupancy;
+
+    BitBoard(final Collection<Piece> pieces) {
+        this.pieceBitBoards = new long[NUMBER_OF_ALLIANCES][NUMBER_OF_PIECE_TYPES];
+        this.allianceBitBoards = new long[NUMBER_OF_ALLIANCES];
+        long allPieces = EMPTY;
+        for (final Piece piece : pieces) {
+            final long mask = getSquareMask(getSquare(piece.getLocation()));
+            this.pieceBitBoards[piece.getAlliance().ordinal()][piece.getPieceType().ordinal()] |= mask;
+            this.allianceBitBoards[piece.getAlliance().ordinal()] |= mask;
+            allPieces |= mask;
+        }
+        this.occupancy = allPieces;
+    }
+
+    public static int getSquare(final Location location) {
+        return getSquare(location.getX(), location.getY());
+    }
+
+    public static int getSquare(final int x, final int y) {
+        return y * BoardUtils.BOARD_SIZE + x;
+    }
+
+    public static int getFile(final int square) {
+        return square & (BoardUtils.BOARD_SIZE - 1);
+    }
+
+    public static int getRank(final int square) {
+        return square >>> 3;
+    }
+
+    public static Location getLocation(final int square) {
+        return BoardUtils.LOCATIONS[getRank(square)][getFile(square)];
+    }
+
+    public static long getSquareMask(final int square) {
+        return 1L << square;
+    }
+
+    public long getPieces(final Alliance alliance, final PieceType pieceType) {
+        return this.pieceBitBoards[alliance.ordinal()][pieceType.ordinal()];
+    }
+
+    public long getPieces(final Alliance alliance) {
+        return this.allianceBitBoards[alliance.ordinal()];
+    }
+
+    public long getOccupancy() {
+        return this.occupancy;
+    }
+
+    public long getEmptySquares() {
+        return ~this.occupancy;
+    }
+
+    public boolean isOccupied(final int square) {
+        return (this.occupancy & getSquareMask(square)) != EMPTY;
+    }
+
+    //Pieces of both alliances attacking the square
+    public long attackersTo(final int square) {
+        return attackersTo(square, this.occupancy);
+    }
+
+    //The occupancy may differ from the real one, e.g. without pieces that are about to leave their squares
+    public long attackersTo(final int square, final long occupancy) {
+        return Attacks.attackersTo(this.pieceBitBoards[Alliance.WHITE.ordinal()], Alliance.WHITE, square, occupancy) |
+                Attacks.attackersTo(this.pieceBitBoards[Alliance.BLACK.ordinal()], Alliance.BLACK, square, occupancy);
+    }
+
+    public boolean isSquareAttacked(final int square, final Alliance attacker) {
+        return isSquareAttacked(square, attacker, this.occupancy);
+    }
+
+    public boolean isSquareAttacked(final int square, final Alliance attacker, final long occupancy) {
+        return Attacks.attackersTo(this.pieceBitBoards[attacker.ordinal()], attacker, square, occupancy) != EMPTY;
+    }
+
+    public int countPieces(final Alliance alliance, final PieceType pieceType) {
+        return Long.bitCount(getPieces(alliance, pieceType));
+    }
+
+    public int countPieces(final Alliance alliance) {
+        return Long.bitCount(getPieces(alliance));
+    }
+}
@@ -1,7 +1,6 @@
 package com.igorternyuk.engine.board;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.igorternyuk.engine.Alliance;
 import com.igorternyuk.engine.moves.Move;
@@ -11,7 +10,6 @@ import com.igorternyuk.engine.player.Player;
 import com.igorternyuk.engine.player.WhitePlayer;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Created by igor on 01.12.17.
@@ -22,7 +20,8 @@ public class Board {
     private final Pawn enPassantPawn;
     private final int kingsRookStartCoordinateX;
     private final int queensRookStartCoordinateX;
-    private final Map<Location, Tile> gameBoard;
+    private final Tile[] tiles;
+    private final BitBoard bitBoard;
     private final Collection<Piece> whitePieces;
     private final Collection<Piece> blackPieces;
     private final Collection<Piece> allActivePieces;
@@ -33,14 +32,17 @@ public class Board {
     private final Player currentPlayer;
     private final boolean isInsufficientMaterial;
     private final Move transitionMove;
+    private final int castlingRights;
+    private final long zobristKey;
 
     private Board(final Builder builder) {
         this.gameType = builder.gameType;
         this.kingsRookStartCoordinateX = builder.kingsRookStartCoordinateX;
         this.queensRookStartCoordinateX = builder.queensRookStartCoordinateX;
-        this.gameBoard = createGameBoard(builder);
-        this.whitePieces = detectActivePieces(this.gameBoard, Alliance.WHITE);
-        this.blackPieces = detectActivePieces(this.gameBoard, Alliance.BLACK);
+        this.tiles = createGameBoard(builder);
+        this.bitBoard = new BitBoard(builder.boardPattern.values());
+        this.whitePieces = detectActivePieces(this.tiles, this.bitBoard.getPieces(Alliance.WHITE));
+        this.blackPieces = detectActivePieces(this.tiles, this.bitBoard.getPieces(Alliance.BLACK));
         this.allActivePieces = ImmutableList.copyOf(Iterables.concat(this.whitePieces, this.blackPieces));
         this.enPassantPawn = builder.enPassantPawn;
         this.legalMovesWhitePieces = calculateLegalMoves(this.whitePieces);
@@ -52,6 +54,10 @@ public class Board {
         this.transitionMove = builder.transitionMove == null
                 ? Move.MoveFactory.NULL_MOVE
                 : builder.transitionMove;
+        this.castlingRights = detectCastlingRights(this.whitePlayer, BoardUtils.WHITE_KING_SIDE_CASTLING,
+                BoardUtils.WHITE_QUEEN_SIDE_CASTLING) | detectCastlingRights(this.blackPlayer,
+                BoardUtils.BLACK_KING_SIDE_CASTLING, BoardUtils.BLACK_QUEEN_SIDE_CASTLING);
+        this.zobristKey = builder.zobristKey == null ? Zobrist.calculateKey(this) : builder.zobristKey;
         if (builder.checkEndGamePhase()) {
             this.setEndGameKings();
         }
@@ -84,8 +90,18 @@ public class Board {
         return this.transitionMove;
     }
 
-    public Map<Location, Tile> getGameBoard() {
-        return this.gameBoard;
+    public BitBoard getBitBoard() {
+        return this.bitBoard;
+    }
+
+    //Asks the bitboards directly, so unlike the legal move lists it also sees squares pawns only threaten
+    public boolean isSquareAttacked(final Location location, final Alliance attacker) {
+        return this.bitBoard.isSquareAttacked(BitBoard.getSquare(location), attacker);
+    }
+
+    //Bitboard of the pieces of both alliances attacking the location
+    public long attackersTo(final Location location) {
+        return this.bitBoard.attackersTo(BitBoard.getSquare(location));
     }
 
     public boolean isInsufficientMaterial() {
@@ -110,6 +126,51 @@ public class Board {
         return this.queensRookStartCoordinateX;
     }
 
+    //Unlike getKingsRookStartCoordinateX() these are the real start files in classic chess too
+    public int getKingsRookStartFile() {
+        return this.gameType != null && this.gameType.isRandomFisherChess()
+                ? this.kingsRookStartCoordinateX
+                : BoardUtils.getCoordinateXForAlgebraicNotation('h');
+    }
+
+    public int getQueensRookStartFile() {
+        return this.gameType != null && this.gameType.isRandomFisherChess()
+                ? this.queensRookStartCoordinateX
+                : BoardUtils.getCoordinateXForAlgebraicNotation('a');
+    }
+
+    public int getCastlingRights() {
+        return this.castlingRights;
+    }
+
+    public int getCastlingRightsAfterMove(final Location start, final Location destination) {
+        int rights = this.castlingRights;
+        for (final Player player : Arrays.asList(this.whitePlayer, this.blackPlayer)) {
+            final int playerRights = BoardUtils.getCastlingRights(player.getAlliance());
+            if ((rights & playerRights) == 0) {
+                continue;
+            }
+            final Location kingLocation = player.getPlayerKing().getLocation();
+            if (start.equals(kingLocation)) {
+                rights &= ~playerRights;
+                continue;
+            }
+            final Location kingsRookLocation = BoardUtils.getLocation(getKingsRookStartFile(), kingLocation.getY());
+            final Location queensRookLocation = BoardUtils.getLocation(getQueensRookStartFile(), kingLocation.getY());
+            if (start.equals(kingsRookLocation) || destination.equals(kingsRookLocation)) {
+                rights &= ~(playerRights & BoardUtils.KING_SIDE_CASTLINGS);
+            }
+            if (start.equals(queensRookLocation) || destination.equals(queensRookLocation)) {
+                rights &= ~(playerRights & BoardUtils.QUEEN_SIDE_CASTLINGS);
+            }
+        }
+        return rights;
+    }
+
+    public long getZobristKey() {
+        return this.zobristKey;
+    }
+
     public Pawn getEnPassantPawn() {
         return this.enPassantPawn;
     }
@@ -139,19 +200,25 @@ public class Board {
     }
 
     public Tile getTile(final Location candidateDestination) {
-        return BoardUtils.isValidLocation(candidateDestination) ? gameBoard.get(candidateDestination) : null;
+        return BoardUtils.isValidLocation(candidateDestination)
+                ? this.tiles[BitBoard.getSquare(candidateDestination)]
+                : null;
     }
 
     public Tile getTile(final int x, final int y) {
-        return BoardUtils.isValidLocation(x, y) ? gameBoard.get(BoardUtils.LOCATIONS[y][x]) : null;
+        return BoardUtils.isValidLocation(x, y) ? this.tiles[BitBoard.getSquare(x, y)] : null;
+    }
+
+    public Tile getTile(final int square) {
+        return this.tiles[square];
     }
 
     public Tile getTile(final char file, final int rank) {
-        return gameBoard.get(BoardUtils.getLocation(file, rank));
+        return getTile(BoardUtils.getLocation(file, rank));
     }
 
     public Tile getTile(final String algebraicNotation) {
-        return gameBoard.get(BoardUtils.getLocation(algebraicNotation));
+        return getTile(BoardUtils.getLocation(algebraicNotation));
     }
 
     public Iterable<Move> getAllLegalMoves() {
@@ -166,44 +233,40 @@ public class Board {
     }
 
     private boolean checkIfInsufficientMaterial() {
-        List<Piece> whitePieces = (List<Piece>) this.whitePieces;
-        List<Piece> blackPieces = (List<Piece>) this.blackPieces;
-        if (whitePieces.size() > 3 && blackPieces.size() > 3) return false;
-        if (whitePieces.size() == 1) {
-            if (blackPieces.size() == 1) return true;
-            if (blackPieces.size() == 2) {
-                final Piece secondBlackPiece = blackPieces.get(0).getPieceType().isKing() ?
-                        blackPieces.get(1) : blackPieces.get(0);
-                if (secondBlackPiece.getPieceType().isMinorPiece())
-                    return true;
-            } else if (blackPieces.size() == 3) {
-                return blackPieces.stream().filter(piece -> !piece.getPieceType().isKing())
-                        .allMatch(piece -> piece.getPieceType().equals(PieceType.KNIGHT));
-            }
-        } else if (whitePieces.size() == 2) {
-            if (blackPieces.size() == 1) {
-                final Piece secondWhitePiece = whitePieces.get(0).getPieceType().isKing() ?
-                        whitePieces.get(1) : whitePieces.get(0);
-                if (secondWhitePiece.getPieceType().isMinorPiece())
-                    return true;
-            } else if (blackPieces.size() == 2) {
-                final Piece secondWhitePiece = whitePieces.get(0).getPieceType().isKing() ?
-                        whitePieces.get(1) : whitePieces.get(0);
-                final Piece secondBlackPiece = blackPieces.get(0).getPieceType().isKing() ?
-                        blackPieces.get(1) : blackPieces.get(0);
-                if ((secondWhitePiece.getPieceType().isMinorPiece()) &&
-                        (secondBlackPiece.getPieceType().isMinorPiece())) {
-                    return true;
-                }
-            }
-        } else if (whitePieces.size() == 3) {
-            if (blackPieces.size() == 1) {
-                return whitePieces.stream().filter(piece -> !piece.getPieceType().isKing())
-                        .allMatch(piece -> piece.getPieceType().equals(PieceType.KNIGHT));
-            }
+        return BoardUtils.isInsufficientMaterial(
+                this.bitBoard.countPieces(Alliance.WHITE) - 1, countMinorPieces(Alliance.WHITE),
+                this.bitBoard.countPieces(Alliance.WHITE, PieceType.KNIGHT),
+                this.bitBoard.countPieces(Alliance.BLACK) - 1, countMinorPieces(Alliance.BLACK),
+                this.bitBoard.countPieces(Alliance.BLACK, PieceType.KNIGHT));
+    }
+
+    private int detectCastlingRights(final Player player, final int kingSideCastling, final int queenSideCastling) {
+        final King king = player.getPlayerKing();
+        if (!king.isFirstMove()) {
+            return 0;
         }
+        final int kingX = king.getLocation().getX();
+        final int backRank = king.getLocation().getY();
+        int rights = 0;
+        if (getKingsRookStartFile() > kingX && isUnmovedRook(getTile(getKingsRookStartFile(), backRank),
+                player.getAlliance())) {
+            rights |= kingSideCastling;
+        }
+        if (getQueensRookStartFile() < kingX && isUnmovedRook(getTile(getQueensRookStartFile(), backRank),
+                player.getAlliance())) {
+            rights |= queenSideCastling;
+        }
+        return rights;
+    }
 
-        return false;
+    private static boolean isUnmovedRook(final Tile tile, final Alliance alliance) {
+        return tile.isOccupied() && tile.getPiece().getPieceType().isRook() && tile.getPiece().isFirstMove() &&
+                tile.getPiece().getAlliance().equals(alliance);
+    }
+
+    private int countMinorPieces(final Alliance alliance) {
+        return this.bitBoard.countPieces(alliance, PieceType.KNIGHT) +
+                this.bitBoard.countPieces(alliance, PieceType.BISHOP);
     }
 
     /*@Override
@@ -252,6 +315,7 @@ public class Board {
         private int queensRookStartCoordinateX;
         private Move transitionMove;
         private boolean checkEndGamePhase = false;
+        private Long zobristKey;
 
         public Builder() {
             this.boardPattern = new HashMap<>();
@@ -296,6 +360,10 @@ public class Board {
             return new Board(this);
         }
 
+        public void setZobristKey(final long zobristKey) {
+            this.zobristKey = zobristKey;
+        }
+
         public void setEnPassantPawn(final Pawn enPassantPawn) {
             this.enPassantPawn = enPassantPawn;
         }
@@ -455,25 +523,26 @@ public class Board {
         return ImmutableList.copyOf(legalMoves);
     }
 
-    private static Collection<Piece> detectActivePieces(final Map<Location, Tile> gameBoard,
-                                                        final Alliance alliance) {
-        final List<Piece> pieces = gameBoard.values().stream()
-                .filter(tile -> tile.isOccupied() && tile.getPiece().getAlliance().equals(alliance))
-                .map(Tile::getPiece).collect(Collectors.toList());
-        return ImmutableList.copyOf(pieces);
+    private static Collection<Piece> detectActivePieces(final Tile[] tiles, final long allianceBitBoard) {
+        final ImmutableList.Builder<Piece> pieces = ImmutableList.builder();
+        long bits = allianceBitBoard;
+        while (bits != BitBoard.EMPTY) {
+            pieces.add(tiles[Long.numberOfTrailingZeros(bits)].getPiece());
+            bits &= bits - 1;
+        }
+        return pieces.build();
     }
 
-    private static Map<Location, Tile> createGameBoard(final Builder builder) {
-        final Map<Location, Tile> tiles = new HashMap<>();
+    private static Tile[] createGameBoard(final Builder builder) {
+        final Tile[] tiles = new Tile[BoardUtils.TOTAL_NUMBER_OF_TILES];
         for (int y = 0; y < BoardUtils.BOARD_SIZE; ++y) {
             for (int x = 0; x < BoardUtils.BOARD_SIZE; ++x) {
                 final Location location = BoardUtils.getLocation(x, y);
                 final Piece piece = builder.boardPattern.get(location);
-                final Tile tile = Tile.createTile(location, piece);
-                tiles.put(location, tile);
+                tiles[BitBoard.getSquare(x, y)] = Tile.createTile(location, piece);
             }
         }
-        return ImmutableMap.copyOf(tiles);
+        return tiles;
     }
 
     @Override
@@ -5,6 +5,7 @@ import com.google.common.collect.ImmutableMap;
 import com.igorternyuk.engine.Alliance;
 import com.igorternyuk.engine.moves.Move;
 import com.igorternyuk.engine.moves.MoveTransition;
+import com.igorternyuk.engine.moves.SearchMove;
 import com.igorternyuk.engine.pieces.Piece;
 import com.igorternyuk.engine.pieces.PieceType;
 
@@ -25,6 +26,12 @@ public class BoardUtils {
     public static final int SEVENTH_RANK = 1;
     public static final int EIGHTH_RANK = 0;
     public static final int MAX_NEIGHBOURS = 8;
+    public static final int WHITE_KING_SIDE_CASTLING = 1;
+    public static final int WHITE_QUEEN_SIDE_CASTLING = 2;
+    public static final int BLACK_KING_SIDE_CASTLING = 4;
+    public static final int BLACK_QUEEN_SIDE_CASTLING = 8;
+    public static final int KING_SIDE_CASTLINGS = WHITE_KING_SIDE_CASTLING | BLACK_KING_SIDE_CASTLING;
+    public static final int QUEEN_SIDE_CASTLINGS = WHITE_QUEEN_SIDE_CASTLING | BLACK_QUEEN_SIDE_CASTLING;
     public static final Location NULL_LOCATION = new Location(-1, -1);
     static final Location[][] LOCATIONS = BoardUtils.createAllPossibleLocations();
     private static final Map<Character, Integer> ALGEBRAIC_NOTATION_FILE_TO_COORDINATE_X =
@@ -51,6 +58,26 @@ public class BoardUtils {
         return PieceType.KING.getValue() - movedPiece.getValue();
     }
 
+    public static int mvvlva(final int move) {
+        final PieceType movedPieceType = SearchMove.getMovedPieceType(move);
+        if (SearchMove.isCapturingMove(move)) {
+            final PieceType capturedPieceType = SearchMove.getCapturedPieceType(move);
+            return (capturedPieceType.getValue() - movedPieceType.getValue() + PieceType.KING.getValue()) * 100;
+        }
+        return PieceType.KING.getValue() - movedPieceType.getValue();
+    }
+
+    // Piece counts exclude the kings
+    public static boolean isInsufficientMaterial(final int whitePieces, final int whiteMinorPieces,
+                                                 final int whiteKnights, final int blackPieces,
+                                                 final int blackMinorPieces, final int blackKnights) {
+        if (whitePieces != whiteMinorPieces || blackPieces != blackMinorPieces) return false;
+        if (whitePieces + blackPieces <= 1) return true;
+        if (whitePieces == 1 && blackPieces == 1) return true;
+        //Two knights against the lone king
+        return (whitePieces == 0 && blackKnights == 2) || (blackPieces == 0 && whiteKnights == 2);
+    }
+
     public static Collection<Move> getMoveHistory(final Board board, int numberOfMoves) {
         final List<Move> moveHistory = new ArrayList<>(numberOfMoves);
         Move currentMove = board.getTransitionMove();
@@ -120,6 +147,12 @@ public class BoardUtils {
         return getLocation(String.valueOf(file) + String.valueOf(rank));
     }
 
+    public static int getCastlingRights(final Alliance alliance) {
+        return alliance.isWhite()
+                ? WHITE_KING_SIDE_CASTLING | WHITE_QUEEN_SIDE_CASTLING
+                : BLACK_KING_SIDE_CASTLING | BLACK_QUEEN_SIDE_CASTLING;
+    }
+
     public static Location getKingsSideCastlingKingTargetLocation(final Alliance alliance) {
         return alliance.isWhite() ? getLocation("g1") : getLocation("g8");
     }
@@ -0,0 +1,214 @@
+package com.igorternyuk.engine.board;
+
+import com.igorternyuk.engine.Alliance;
+import com.igorternyuk.engine.pieces.*;
+
+/**
+ * Creates boards from Forsyth-Edwards Notation. Castling rights may be given as KQkq or, for Chess960, as
+ * Shredder/X-FEN rook files. The move counters are accepted but not kept because Board does not track them.
+ */
+public final class FenParser {
+    private static final int NUMBER_OF_MANDATORY_FIELDS = 4;
+    private static final int NO_FILE = -1;
+    private static final int CLASSIC_KINGS_FILE = 4;
+
+    private FenParser() {
+    }
+
+    public static Board createBoard(final String fen) {
+        final String[] fields = fen.trim().split("\\s+");
+        if (fields.length < NUMBER_OF_MANDATORY_FIELDS) {
+            throw new RuntimeException("Incomplete FEN: " + fen);
+        }
+        final char[][] placement = parsePlacement(fields[0], fen);
+        final Alliance moveMaker = parseMoveMaker(fields[1], fen);
+
+        //Castling rook files indexed by alliance ordinal
+        final int[] kingFiles = {findKingFile(placement, Alliance.WHITE, fen), findKingFile(placement,
+                Alliance.BLACK, fen)};
+        final int[] kingsRookFiles = {NO_FILE, NO_FILE};
+        final int[] queensRookFiles = {NO_FILE, NO_FILE};
+        if (!fields[2].equals("-")) {
+            for (final char symbol : fields[2].toCharArray()) {
+                final Alliance alliance = Character.isUpperCase(symbol) ? Alliance.WHITE : Alliance.BLACK;
+                final int side = alliance.ordinal();
+                final int rookFile = findCastlingRookFile(placement, alliance, kingFiles[side],
+                        Character.toLowerCase(symbol), fen);
+                if (rookFile > kingFiles[side]) {
+                    kingsRookFiles[side] = rookFile;
+                } else {
+                    queensRookFiles[side] = rookFile;
+                }
+            }
+        }
+
+        final Board.Builder builder = new Board.Builder();
+        final boolean isClassicChess = isClassicChess(kingFiles, kingsRookFiles, queensRookFiles);
+        if (isClassicChess) {
+            //Same convention as Board.createStandardBoard
+            builder.setGameType(GameType.CLASSIC_CHESS);
+            builder.setKingsRookStartCoordinateX(0);
+            builder.setQueensRookStartCoordinateX(BoardUtils.BOARD_SIZE - 1);
+        } else {
+            builder.setGameType(GameType.RANDOM_FISHER_CHESS);
+            builder.setKingsRookStartCoordinateX(firstKnownFile(kingsRookFiles, BoardUtils.BOARD_SIZE - 1));
+            builder.setQueensRookStartCoordinateX(firstKnownFile(queensRookFiles, 0));
+        }
+
+        for (int y = 0; y < BoardUtils.BOARD_SIZE; ++y) {
+            for (int x = 0; x < BoardUtils.BOARD_SIZE; ++x) {
+                final char symbol = placement[y][x];
+                if (symbol != 0) {
+                    builder.setPiece(createPiece(symbol, x, y, kingsRookFiles, queensRookFiles));
+                }
+            }
+        }
+        builder.setMoveMaker(moveMaker);
+        if (!fields[3].equals("-")) {
+            builder.setEnPassantPawn(findEnPassantPawn(fields[3], moveMaker, placement, fen));
+        }
+        return builder.build();
+    }
+
+    private static char[][] parsePlacement(final String placementField, final String fen) {
+        final String[] ranks = placementField.split("/");
+        if (ranks.length != BoardUtils.BOARD_SIZE) {
+            throw new RuntimeException("FEN must describe 8 ranks: " + fen);
+        }
+        final char[][] placement = new char[BoardUtils.BOARD_SIZE][BoardUtils.BOARD_SIZE];
+        for (int y = 0; y < BoardUtils.BOARD_SIZE; ++y) {
+            int x = 0;
+            for (final char symbol : ranks[y].toCharArray()) {
+                if (Character.isDigit(symbol)) {
+                    x += symbol - '0';
+                } else if (x < BoardUtils.BOARD_SIZE && "KQRBNPkqrbnp".indexOf(symbol) >= 0) {
+                    placement[y][x++] = symbol;
+                } else {
+                    throw new RuntimeException("Invalid FEN rank " + ranks[y] + ": " + fen);
+                }
+            }
+            if (x != BoardUtils.BOARD_SIZE) {
+                throw new RuntimeException("Invalid FEN rank " + ranks[y] + ": " + fen);
+            }
+        }
+        return placement;
+    }
+
+    private static Alliance parseMoveMaker(final String moveMakerField, final String fen) {
+        switch (moveMakerField) {
+            case "w":
+                return Alliance.WHITE;
+            case "b":
+                return Alliance.BLACK;
+            default:
+                throw new RuntimeException("Invalid side to move in FEN: " + fen);
+        }
+    }
+
+    private static int findKingFile(final char[][] placement, final Alliance alliance, final String fen) {
+        final char king = alliance.isWhite() ? 'K' : 'k';
+        final int backRank = getBackRank(alliance);
+        for (int x = 0; x < BoardUtils.BOARD_SIZE; ++x) {
+            if (placement[backRank][x] == king) {
+                return x;
+            }
+        }
+        for (final char[] rank : placement) {
+            for (final char symbol : rank) {
+                if (symbol == king) {
+                    return NO_FILE;
+                }
+            }
+        }
+        throw new RuntimeException("No " + alliance + " king in FEN: " + fen);
+    }
+
+    //K and Q stand for the outermost rook on that side of the king, a file letter names the rook directly
+    private static int findCastlingRookFile(final char[][] placement, final Alliance alliance, final int kingFile,
+                                            final char castlingSymbol, final String fen) {
+        final char rook = alliance.isWhite() ? 'R' : 'r';
+        final char[] backRank = placement[getBackRank(alliance)];
+        if (kingFile != NO_FILE) {
+            if (castlingSymbol == 'k') {
+                for (int x = BoardUtils.BOARD_SIZE - 1; x > kingFile; --x) {
+                    if (backRank[x] == rook) {
+                        return x;
+                    }
+                }
+            } else if (castlingSymbol == 'q') {
+                for (int x = 0; x < kingFile; ++x) {
+                    if (backRank[x] == rook) {
+                        return x;
+                    }
+                }
+            } else if (castlingSymbol >= 'a' && castlingSymbol <= 'h' && backRank[castlingSymbol - 'a'] == rook) {
+                return castlingSymbol - 'a';
+            }
+        }
+        throw new RuntimeException("Castling right " + castlingSymbol + " of " + alliance +
+                " has no rook in FEN: " + fen);
+    }
+
+    private static boolean isClassicChess(final int[] kingFiles, final int[] kingsRookFiles,
+                                          final int[] queensRookFiles) {
+        for (int side = 0; side < BitBoard.NUMBER_OF_ALLIANCES; ++side) {
+            final boolean hasCastlingRights = kingsRookFiles[side] != NO_FILE || queensRookFiles[side] != NO_FILE;
+            if (hasCastlingRights && (kingFiles[side] != CLASSIC_KINGS_FILE ||
+                    (kingsRookFiles[side] != NO_FILE && kingsRookFiles[side] != BoardUtils.BOARD_SIZE - 1) ||
+                    (queensRookFiles[side] != NO_FILE && queensRookFiles[side] != 0))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int firstKnownFile(final int[] files, final int defaultFile) {
+        for (final int file : files) {
+            if (file != NO_FILE) {
+                return file;
+            }
+        }
+        return defaultFile;
+    }
+
+    private static Piece createPiece(final char symbol, final int x, final int y, final int[] kingsRookFiles,
+                                     final int[] queensRookFiles) {
+        final Alliance alliance = Character.isUpperCase(symbol) ? Alliance.WHITE : Alliance.BLACK;
+        final int side = alliance.ordinal();
+        final boolean isOnBackRank = y == getBackRank(alliance);
+        switch (Character.toLowerCase(symbol)) {
+            case 'k':
+                return King.createKing(x, y, alliance, isOnBackRank &&
+                        (kingsRookFiles[side] != NO_FILE || queensRookFiles[side] != NO_FILE));
+            case 'q':
+                return Queen.createQueen(x, y, alliance, false);
+            case 'r':
+                return Rook.createRook(x, y, alliance, isOnBackRank &&
+                        (kingsRookFiles[side] == x || queensRookFiles[side] == x));
+            case 'b':
+                return Bishop.createBishop(x, y, alliance, false);
+            case 'n':
+                return Knight.createKnight(x, y, alliance, false);
+            default:
+                return Pawn.createPawn(x, y, alliance,
+                        y == (alliance.isWhite() ? BoardUtils.SECOND_RANK : BoardUtils.SEVENTH_RANK));
+        }
+    }
+
+    //FEN names the square behind the pawn that has just jumped, Board keeps the pawn itself
+    private static Pawn findEnPassantPawn(final String square, final Alliance moveMaker, final char[][] placement,
+                                          final String fen) {
+        final Location target = BoardUtils.getLocation(square);
+        final int pawnY = target.getY() + (moveMaker.isWhite() ? 1 : -1);
+        final char pawn = moveMaker.isWhite() ? 'p' : 'P';
+        if (!BoardUtils.isValidLocation(target.getX(), pawnY) || placement[pawnY][target.getX()] != pawn) {
+            throw new RuntimeException("No pawn to capture en passant on " + square + " in FEN: " + fen);
+        }
+        return Pawn.createPawn(target.getX(), pawnY, moveMaker.isWhite() ? Alliance.BLACK : Alliance.WHITE,
+                false);
+    }
+
+    private static int getBackRank(final Alliance alliance) {
+        return alliance.isWhite() ? BoardUtils.FIRST_RANK : BoardUtils.EIGHTH_RANK;
+    }
+}
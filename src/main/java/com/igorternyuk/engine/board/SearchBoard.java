@@ -0,0 +1,885 @@
+package com.igorternyuk.engine.board;
+
+import com.igorternyuk.engine.Alliance;
+import com.igorternyuk.engine.moves.SearchMove;
+import com.igorternyuk.engine.pieces.Pawn;
+import com.igorternyuk.engine.pieces.Piece;
+import com.igorternyuk.engine.pieces.PieceType;
+
+import java.util.Arrays;
+
+/**
+ * Mutable bitboard position for the search engines. Moves are applied with {@link #makeMove(int)} and
+ * taken back with {@link #unmakeMove()}, so a search walks the whole tree on a single instance instead of
+ * building a new {@link Board} for every node. The GUI and {@link com.igorternyuk.engine.Game} keep using the
+ * immutable {@link Board}.
+ */
+public final class SearchBoard {
+    public static final int NO_SQUARE = -1;
+    public static final int MAX_GAME_LENGTH = 1024;
+    //More than the most legal moves any chess position has
+    public static final int MAX_MOVES = 256;
+    private static final int KING_SIDE_CASTLING_KING_TARGET_FILE = 6;
+    private static final int KING_SIDE_CASTLING_ROOK_TARGET_FILE = 5;
+    private static final int QUEEN_SIDE_CASTLING_KING_TARGET_FILE = 2;
+    private static final int QUEEN_SIDE_CASTLING_ROOK_TARGET_FILE = 3;
+    //Move generation stages, captures include en passant and every promotion
+    private static final int CAPTURES = 1;
+    private static final int QUIET_MOVES = 2;
+    private static final int ALL_MOVES = CAPTURES | QUIET_MOVES;
+    private static final long ALL_SQUARES = ~BitBoard.EMPTY;
+    private static final PieceType[] PROMOTION_PIECE_TYPES = {
+            PieceType.QUEEN, PieceType.ROOK, PieceType.KNIGHT, PieceType.BISHOP
+    };
+    //Least valuable first, the order in which both sides recapture in a static exchange
+    private static final PieceType[] EXCHANGE_ORDER = {
+            PieceType.PAWN, PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN, PieceType.KING
+    };
+    //No square can be captured on more often than there are pieces
+    private static final int MAX_EXCHANGE_LENGTH = 32;
+
+    private final long[][] pieceBitBoards = new long[BitBoard.NUMBER_OF_ALLIANCES][BitBoard.NUMBER_OF_PIECE_TYPES];
+    private final long[] allianceBitBoards = new long[BitBoard.NUMBER_OF_ALLIANCES];
+    private long occupancy;
+    private final PieceType[] pieceTypes = new PieceType[BoardUtils.TOTAL_NUMBER_OF_TILES];
+    private final Alliance[] pieceAlliances = new Alliance[BoardUtils.TOTAL_NUMBER_OF_TILES];
+    private final int[] castlingRightsMasks = new int[BoardUtils.TOTAL_NUMBER_OF_TILES];
+    private final boolean[] castled = new boolean[BitBoard.NUMBER_OF_ALLIANCES];
+    private GameType gameType;
+    private int kingsRookStartFile;
+    private int queensRookStartFile;
+    private Alliance sideToMove;
+    private int castlingRights;
+    private int enPassantSquare;
+    private int halfMoveClock;
+    private long zobristKey;
+    private long movedPieces;
+
+    private final int[] moveHistory = new int[MAX_GAME_LENGTH];
+    private final PieceType[] capturedPieceHistory = new PieceType[MAX_GAME_LENGTH];
+    private final int[] castlingRightsHistory = new int[MAX_GAME_LENGTH];
+    private final int[] enPassantSquareHistory = new int[MAX_GAME_LENGTH];
+    private final int[] halfMoveClockHistory = new int[MAX_GAME_LENGTH];
+    private final boolean[] castledHistory = new boolean[MAX_GAME_LENGTH];
+    private final long[] zobristKeyHistory = new long[MAX_GAME_LENGTH];
+    private final long[] movedPiecesHistory = new long[MAX_GAME_LENGTH];
+    private int historySize;
+    //Set up by prepareMoveGeneration for the position being generated
+    private boolean isLegalOnly;
+    private long pinnedPieces;
+    private long evasionTargets;
+    //Pins and checks of each ply, found once for the position there and kept while moves below it are searched.
+    //The hash move, the killers and every stage of the move picker are checked against the same ones
+    private final long[] pinnedPiecesHistory = new long[MAX_GAME_LENGTH];
+    private final long[] evasionTargetsHistory = new long[MAX_GAME_LENGTH];
+    private final boolean[] isLegalMoveGenerationPrepared = new boolean[MAX_GAME_LENGTH];
+    //Moves of single pieces while looking for one particular legal move
+    private final int[] pieceMoves = new int[MAX_MOVES];
+    //Material balance after each capture of a static exchange
+    private final int[] exchangeGains = new int[MAX_EXCHANGE_LENGTH];
+
+    public SearchBoard(final Board board) {
+        this.gameType = board.getGameType() == null ? GameType.CLASSIC_CHESS : board.getGameType();
+        this.kingsRookStartFile = board.getKingsRookStartFile();
+        this.queensRookStartFile = board.getQueensRookStartFile();
+        for (final Piece piece : board.getAllActivePieces()) {
+            putPiece(piece.getAlliance(), piece.getPieceType(), BitBoard.getSquare(piece.getLocation()));
+            if (!piece.isFirstMove()) {
+                this.movedPieces |= BitBoard.getSquareMask(BitBoard.getSquare(piece.getLocation()));
+            }
+        }
+        this.sideToMove = board.getCurrentPlayer().getAlliance();
+        this.castled[Alliance.WHITE.ordinal()] = board.getWhitePlayer().isCastled();
+        this.castled[Alliance.BLACK.ordinal()] = board.getBlackPlayer().isCastled();
+        this.castlingRights = board.getCastlingRights();
+        createCastlingRightsMasks();
+        final Pawn enPassantPawn = board.getEnPassantPawn();
+        if (enPassantPawn != null && !enPassantPawn.getAlliance().equals(this.sideToMove)) {
+            this.enPassantSquare = BitBoard.getSquare(enPassantPawn.getLocation().getX(),
+                    enPassantPawn.getLocation().getY() - enPassantPawn.getAlliance().getDirectionY());
+        } else {
+            this.enPassantSquare = NO_SQUARE;
+        }
+        this.halfMoveClock = 0;
+        this.zobristKey = board.getZobristKey();
+        this.historySize = 0;
+    }
+
+    //Copies the position together with the moves that led to it, so the copy can be unmade back to the same root
+    public SearchBoard(final SearchBoard other) {
+        copyFrom(other);
+    }
+
+    //Turns this board into a copy of the other one, so that a board can be reused for another position instead of
+    //allocating a new one
+    public void copyFrom(final SearchBoard other) {
+        this.gameType = other.gameType;
+        this.kingsRookStartFile = other.kingsRookStartFile;
+        this.queensRookStartFile = other.queensRookStartFile;
+        for (int alliance = 0; alliance < BitBoard.NUMBER_OF_ALLIANCES; ++alliance) {
+            System.arraycopy(other.pieceBitBoards[alliance], 0, this.pieceBitBoards[alliance], 0,
+                    BitBoard.NUMBER_OF_PIECE_TYPES);
+        }
+        System.arraycopy(other.allianceBitBoards, 0, this.allianceBitBoards, 0, BitBoard.NUMBER_OF_ALLIANCES);
+        this.occupancy = other.occupancy;
+        System.arraycopy(other.pieceTypes, 0, this.pieceTypes, 0, BoardUtils.TOTAL_NUMBER_OF_TILES);
+        System.arraycopy(other.pieceAlliances, 0, this.pieceAlliances, 0, BoardUtils.TOTAL_NUMBER_OF_TILES);
+        System.arraycopy(other.castlingRightsMasks, 0, this.castlingRightsMasks, 0,
+                BoardUtils.TOTAL_NUMBER_OF_TILES);
+        System.arraycopy(other.castled, 0, this.castled, 0, BitBoard.NUMBER_OF_ALLIANCES);
+        this.sideToMove = other.sideToMove;
+        this.castlingRights = other.castlingRights;
+        this.enPassantSquare = other.enPassantSquare;
+        this.halfMoveClock = other.halfMoveClock;
+        this.zobristKey = other.zobristKey;
+        this.movedPieces = other.movedPieces;
+        this.historySize = other.historySize;
+        System.arraycopy(other.moveHistory, 0, this.moveHistory, 0, this.historySize);
+        System.arraycopy(other.capturedPieceHistory, 0, this.capturedPieceHistory, 0, this.historySize);
+        System.arraycopy(other.castlingRightsHistory, 0, this.castlingRightsHistory, 0, this.historySize);
+        System.arraycopy(other.enPassantSquareHistory, 0, this.enPassantSquareHistory, 0, this.historySize);
+        System.arraycopy(other.halfMoveClockHistory, 0, this.halfMoveClockHistory, 0, this.historySize);
+        System.arraycopy(other.castledHistory, 0, this.castledHistory, 0, this.historySize);
+        System.arraycopy(other.zobristKeyHistory, 0, this.zobristKeyHistory, 0, this.historySize);
+        System.arraycopy(other.movedPiecesHistory, 0, this.movedPiecesHistory, 0, this.historySize);
+        Arrays.fill(this.isLegalMoveGenerationPrepared, 0, this.historySize + 1, false);
+    }
+
+    public GameType getGameType() {
+        return this.gameType;
+    }
+
+    public Alliance getSideToMove() {
+        return this.sideToMove;
+    }
+
+    public int getCastlingRights() {
+        return this.castlingRights;
+    }
+
+    public int getEnPassantSquare() {
+        return this.enPassantSquare;
+    }
+
+    public int getHalfMoveClock() {
+        return this.halfMoveClock;
+    }
+
+    public long getZobristKey() {
+        return this.zobristKey;
+    }
+
+    //Squares of the pieces that have moved since the game started, like Piece.isFirstMove() tells for the board
+    public long getMovedPieces() {
+        return this.movedPieces;
+    }
+
+    public boolean isCastled(final Alliance alliance) {
+        return this.castled[alliance.ordinal()];
+    }
+
+    public boolean canCastle(final Alliance alliance) {
+        return (this.castlingRights & BoardUtils.getCastlingRights(alliance)) != 0;
+    }
+
+    public long getPieces(final Alliance alliance, final PieceType pieceType) {
+        return this.pieceBitBoards[alliance.ordinal()][pieceType.ordinal()];
+    }
+
+    public long getPieces(final Alliance alliance) {
+        return this.allianceBitBoards[alliance.ordinal()];
+    }
+
+    public long getOccupancy() {
+        return this.occupancy;
+    }
+
+    public PieceType getPieceType(final int square) {
+        return this.pieceTypes[square];
+    }
+
+    public Alliance getPieceAlliance(final int square) {
+        return this.pieceAlliances[square];
+    }
+
+    public int getKingSquare(final Alliance alliance) {
+        return Long.numberOfTrailingZeros(getPieces(alliance, PieceType.KING));
+    }
+
+    public int getPly() {
+        return this.historySize;
+    }
+
+    public boolean isInCheck() {
+        return isSquareAttacked(getKingSquare(this.sideToMove), opponentOf(this.sideToMove));
+    }
+
+    public boolean isInsufficientMaterial() {
+        return BoardUtils.isInsufficientMaterial(
+                Long.bitCount(getPieces(Alliance.WHITE)) - 1, countMinorPieces(Alliance.WHITE),
+                Long.bitCount(getPieces(Alliance.WHITE, PieceType.KNIGHT)),
+                Long.bitCount(getPieces(Alliance.BLACK)) - 1, countMinorPieces(Alliance.BLACK),
+                Long.bitCount(getPieces(Alliance.BLACK, PieceType.KNIGHT)));
+    }
+
+    //Pieces other than pawns and the king, without them passing the turn can be the best a side has
+    public boolean hasNonPawnMaterial(final Alliance alliance) {
+        return (getPieces(alliance) & ~getPieces(alliance, PieceType.PAWN) & ~getPieces(alliance, PieceType.KING)) !=
+                BitBoard.EMPTY;
+    }
+
+    //Whether a null move could prove anything here. Passing the turn is never possible in check and is often the
+    //best move in pawn endings, where zugzwang is common. Two null moves in a row would not prove anything either
+    public boolean canPassTheTurn() {
+        return getPreviousMove(0) != SearchMove.NO_MOVE && hasNonPawnMaterial(this.sideToMove) && !isInCheck();
+    }
+
+    //The move made the given number of plies before the current position, NO_MOVE for a null move and beyond the
+    //first one searched
+    public int getPreviousMove(final int pliesAgo) {
+        return pliesAgo < this.historySize ? this.moveHistory[this.historySize - 1 - pliesAgo] : SearchMove.NO_MOVE;
+    }
+
+    public boolean isSquareAttacked(final int square, final Alliance attacker) {
+        final long[] attackerPieces = this.pieceBitBoards[attacker.ordinal()];
+        final long queens = attackerPieces[PieceType.QUEEN.ordinal()];
+        //A pawn of the other alliance on the square would capture exactly where the attacking pawns stand
+        return (Attacks.pawnAttacks(opponentOf(attacker), square) & attackerPieces[PieceType.PAWN.ordinal()]) !=
+                BitBoard.EMPTY ||
+                (Attacks.knightAttacks(square) & attackerPieces[PieceType.KNIGHT.ordinal()]) != BitBoard.EMPTY ||
+                (Attacks.kingAttacks(square) & attackerPieces[PieceType.KING.ordinal()]) != BitBoard.EMPTY ||
+                (Attacks.bishopAttacks(square, this.occupancy) &
+                        (attackerPieces[PieceType.BISHOP.ordinal()] | queens)) != BitBoard.EMPTY ||
+                (Attacks.rookAttacks(square, this.occupancy) &
+                        (attackerPieces[PieceType.ROOK.ordinal()] | queens)) != BitBoard.EMPTY;
+    }
+
+    //Pieces of both alliances attacking the square
+    public long attackersTo(final int square) {
+        return Attacks.attackersTo(this.pieceBitBoards[Alliance.WHITE.ordinal()], Alliance.WHITE, square,
+                this.occupancy) | Attacks.attackersTo(this.pieceBitBoards[Alliance.BLACK.ordinal()], Alliance.BLACK,
+                square, this.occupancy);
+    }
+
+    //Static exchange evaluation: the material the side to move wins with the move once both sides have recaptured on
+    //its destination square with their least valuable attacker for as long as that pays, in the values of
+    //PieceType. Nothing is made on the board. Sliders behind a piece that has captured join in as x-rays,
+    //pins are ignored
+    public int evaluateStaticExchange(final int move) {
+        if (SearchMove.isCastlingMove(move)) {
+            return 0;
+        }
+        final int from = SearchMove.getFrom(move);
+        final int to = SearchMove.getTo(move);
+        long occupied = this.occupancy & ~BitBoard.getSquareMask(from);
+        if (SearchMove.isEnPassantCapture(move)) {
+            occupied &= ~BitBoard.getSquareMask(BitBoard.getSquare(BitBoard.getFile(to), BitBoard.getRank(from)));
+        }
+        PieceType pieceOnSquare = SearchMove.getMovedPieceType(move);
+        int gain = SearchMove.isCapturingMove(move) ? SearchMove.getCapturedPieceType(move).getValue() : 0;
+        if (SearchMove.isPawnPromotionMove(move)) {
+            pieceOnSquare = SearchMove.getPromotionPieceType(move);
+            gain += pieceOnSquare.getValue() - PieceType.PAWN.getValue();
+        }
+        this.exchangeGains[0] = gain;
+        final long diagonalSliders = getPieces(Alliance.WHITE, PieceType.BISHOP) |
+                getPieces(Alliance.BLACK, PieceType.BISHOP) | getPieces(Alliance.WHITE, PieceType.QUEEN) |
+                getPieces(Alliance.BLACK, PieceType.QUEEN);
+        final long straightSliders = getPieces(Alliance.WHITE, PieceType.ROOK) |
+                getPieces(Alliance.BLACK, PieceType.ROOK) | getPieces(Alliance.WHITE, PieceType.QUEEN) |
+                getPieces(Alliance.BLACK, PieceType.QUEEN);
+        long attackers = (Attacks.attackersTo(this.pieceBitBoards[Alliance.WHITE.ordinal()], Alliance.WHITE, to,
+                occupied) | Attacks.attackersTo(this.pieceBitBoards[Alliance.BLACK.ordinal()], Alliance.BLACK, to,
+                occupied)) & occupied;
+        Alliance side = opponentOf(this.sideToMove);
+        int depth = 0;
+        while (true) {
+            final long sideAttackers = attackers & getPieces(side);
+            if (sideAttackers == BitBoard.EMPTY) {
+                break;
+            }
+            PieceType attackerType = null;
+            long attacker = BitBoard.EMPTY;
+            for (final PieceType pieceType : EXCHANGE_ORDER) {
+                attacker = sideAttackers & getPieces(side, pieceType);
+                if (attacker != BitBoard.EMPTY) {
+                    attackerType = pieceType;
+                    attacker &= -attacker;
+                    break;
+                }
+            }
+            occupied &= ~attacker;
+            attackers = (attackers | (Attacks.bishopAttacks(to, occupied) & diagonalSliders) |
+                    (Attacks.rookAttacks(to, occupied) & straightSliders)) & occupied;
+            //The king may only take the last piece
+            if (attackerType == PieceType.KING && (attackers & getPieces(opponentOf(side))) != BitBoard.EMPTY) {
+                break;
+            }
+            ++depth;
+            this.exchangeGains[depth] = pieceOnSquare.getValue() - this.exchangeGains[depth - 1];
+            pieceOnSquare = attackerType;
+            side = opponentOf(side);
+        }
+        //Each side stops recapturing as soon as going on would lose more than stopping
+        for (; depth > 0; --depth) {
+            this.exchangeGains[depth - 1] = -Math.max(-this.exchangeGains[depth - 1], this.exchangeGains[depth]);
+        }
+        return this.exchangeGains[0];
+    }
+
+    public int countMobility(final Alliance alliance) {
+        int mobility = 0;
+        long pieces = getPieces(alliance) & ~getPieces(alliance, PieceType.PAWN) & ~getPieces(alliance, PieceType.KING);
+        while (pieces != BitBoard.EMPTY) {
+            final int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            mobility += Long.bitCount(Attacks.pieceAttacks(this.pieceTypes[square], square, this.occupancy) &
+                    ~getPieces(alliance));
+        }
+        return mobility;
+    }
+
+    //Pins and checkers are found once for the position, so no move has to be made to learn it is legal
+    public int[] generateLegalMoves() {
+        final int[] moves = new int[MAX_MOVES];
+        return Arrays.copyOf(moves, generateLegalMoves(moves, 0));
+    }
+
+    //The generators below write into a buffer the search keeps for each ply, from the start index on, and return
+    //the index behind the last move they wrote
+    public int generateLegalMoves(final int[] moves, final int start) {
+        return generateMoves(ALL_MOVES, true, moves, start);
+    }
+
+    //The legal moves of a side in check: king moves, captures of the checker and interpositions
+    public int generateEvasions(final int[] moves, final int start) {
+        if (!isInCheck()) {
+            throw new RuntimeException("Evasions are generated only for a side in check");
+        }
+        return generateMoves(ALL_MOVES, true, moves, start);
+    }
+
+    //Legal captures, en passant captures and promotions
+    public int generateCaptures(final int[] moves, final int start) {
+        return generateMoves(CAPTURES, true, moves, start);
+    }
+
+    //Every legal move generateCaptures leaves out, castling included
+    public int generateQuietMoves(final int[] moves, final int start) {
+        return generateMoves(QUIET_MOVES, true, moves, start);
+    }
+
+    //Moves that may leave the own king attacked, for checking the legal generator against makeMoveIfLegal
+    public int[] generatePseudoLegalMoves() {
+        final int[] moves = new int[MAX_MOVES];
+        return Arrays.copyOf(moves, generateMoves(ALL_MOVES, false, moves, 0));
+    }
+
+    public boolean hasLegalMoves() {
+        prepareMoveGeneration(true);
+        //The king comes last, its moves are the only ones that need attack lookups
+        final long king = getPieces(this.sideToMove, PieceType.KING);
+        long pieces = getPieces(this.sideToMove) & ~king;
+        while (pieces != BitBoard.EMPTY) {
+            if (addPieceMoves(Long.numberOfTrailingZeros(pieces), ALL_MOVES, this.pieceMoves, 0) > 0) {
+                return true;
+            }
+            pieces &= pieces - 1;
+        }
+        //A Chess960 king already on its castling square may have nothing but the castling left
+        return addPieceMoves(Long.numberOfTrailingZeros(king), ALL_MOVES, this.pieceMoves, 0) > 0 ||
+                addCastlingMoves(this.pieceMoves, 0) > 0;
+    }
+
+    //Makes a pseudo-legal move unless it leaves the own king attacked, in which case the board is left unchanged.
+    //Slower than generating legal moves in the first place, but it cannot share a bug with the pin detection
+    public boolean makeMoveIfLegal(final int move) {
+        final Alliance mover = this.sideToMove;
+        makeMove(move);
+        if (isSquareAttacked(getKingSquare(mover), this.sideToMove)) {
+            unmakeMove();
+            return false;
+        }
+        return true;
+    }
+
+    //The legal move of the side to move with these squares and promotion, NO_MOVE if there is none. Hash moves and
+    //killers come from other positions and are validated this way before they are searched
+    public int findLegalMove(final int from, final int to, final PieceType promotionPieceType) {
+        if (this.pieceAlliances[from] != this.sideToMove) {
+            return SearchMove.NO_MOVE;
+        }
+        final int numberOfMoves = generatePieceMoves(from);
+        for (int i = 0; i < numberOfMoves; ++i) {
+            final int move = this.pieceMoves[i];
+            if (SearchMove.getTo(move) == to && SearchMove.getPromotionPieceType(move) == promotionPieceType) {
+                return move;
+            }
+        }
+        return SearchMove.NO_MOVE;
+    }
+
+    //Compares the whole move, flags included: in Chess960 a castling and a plain king move can share both squares,
+    //so a move remembered from another node is only playable here if exactly this move is legal
+    public boolean isLegalMove(final int move) {
+        final int from = SearchMove.getFrom(move);
+        if (this.pieceAlliances[from] != this.sideToMove) {
+            return false;
+        }
+        final int numberOfMoves = generatePieceMoves(from);
+        for (int i = 0; i < numberOfMoves; ++i) {
+            if (this.pieceMoves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //Legal moves of the piece on the square into the piece move buffer, castlings included for the king
+    private int generatePieceMoves(final int from) {
+        prepareMoveGeneration(true);
+        final int numberOfMoves = addPieceMoves(from, ALL_MOVES, this.pieceMoves, 0);
+        return this.pieceTypes[from].isKing() ? addCastlingMoves(this.pieceMoves, numberOfMoves) : numberOfMoves;
+    }
+
+    private int generateMoves(final int moveTypes, final boolean isLegalOnly, final int[] moves, final int start) {
+        prepareMoveGeneration(isLegalOnly);
+        int end = start;
+        long pieces = getPieces(this.sideToMove);
+        while (pieces != BitBoard.EMPTY) {
+            final int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            end = addPieceMoves(square, moveTypes, moves, end);
+        }
+        if ((moveTypes & QUIET_MOVES) != 0) {
+            end = addCastlingMoves(moves, end);
+        }
+        return end;
+    }
+
+    //A piece pinned to its king may only move along the pin line. In check the other pieces may only capture the
+    //checker or step between it and the king, and in double check only the king moves
+    private void prepareMoveGeneration(final boolean isLegalOnly) {
+        this.isLegalOnly = isLegalOnly;
+        if (!isLegalOnly) {
+            this.pinnedPieces = BitBoard.EMPTY;
+            this.evasionTargets = ALL_SQUARES;
+            return;
+        }
+        if (this.isLegalMoveGenerationPrepared[this.historySize]) {
+            this.pinnedPieces = this.pinnedPiecesHistory[this.historySize];
+            this.evasionTargets = this.evasionTargetsHistory[this.historySize];
+            return;
+        }
+        final Alliance opponent = opponentOf(this.sideToMove);
+        final int kingSquare = getKingSquare(this.sideToMove);
+        final long checkers = Attacks.attackersTo(this.pieceBitBoards[opponent.ordinal()], opponent, kingSquare,
+                this.occupancy);
+        if (checkers == BitBoard.EMPTY) {
+            this.evasionTargets = ALL_SQUARES;
+        } else if (Long.bitCount(checkers) == 1) {
+            this.evasionTargets = checkers | Attacks.between(kingSquare, Long.numberOfTrailingZeros(checkers));
+        } else {
+            this.evasionTargets = BitBoard.EMPTY;
+        }
+        final long queens = getPieces(opponent, PieceType.QUEEN);
+        long snipers = (Attacks.rookAttacks(kingSquare, BitBoard.EMPTY) &
+                (getPieces(opponent, PieceType.ROOK) | queens)) |
+                (Attacks.bishopAttacks(kingSquare, BitBoard.EMPTY) & (getPieces(opponent, PieceType.BISHOP) | queens));
+        this.pinnedPieces = BitBoard.EMPTY;
+        while (snipers != BitBoard.EMPTY) {
+            final long blockers = Attacks.between(kingSquare, Long.numberOfTrailingZeros(snipers)) & this.occupancy;
+            if (Long.bitCount(blockers) == 1) {
+                this.pinnedPieces |= blockers & getPieces(this.sideToMove);
+            }
+            snipers &= snipers - 1;
+        }
+        this.pinnedPiecesHistory[this.historySize] = this.pinnedPieces;
+        this.evasionTargetsHistory[this.historySize] = this.evasionTargets;
+        this.isLegalMoveGenerationPrepared[this.historySize] = true;
+    }
+
+    //Destinations that keep the own king safe for a piece other than the king
+    private long getLegalTargets(final int square) {
+        if ((this.pinnedPieces & BitBoard.getSquareMask(square)) == BitBoard.EMPTY) {
+            return this.evasionTargets;
+        }
+        return this.evasionTargets & Attacks.line(getKingSquare(this.sideToMove), square);
+    }
+
+    //The king is taken off the board first, otherwise it would hide the squares behind it from a checking slider
+    private long removeAttackedSquares(final int kingSquare, final long targets) {
+        final Alliance opponent = opponentOf(this.sideToMove);
+        final long kingMask = BitBoard.getSquareMask(kingSquare);
+        long safeTargets = targets;
+        long candidates = targets;
+        this.occupancy ^= kingMask;
+        while (candidates != BitBoard.EMPTY) {
+            final int target = Long.numberOfTrailingZeros(candidates);
+            candidates &= candidates - 1;
+            if (isSquareAttacked(target, opponent)) {
+                safeTargets &= ~BitBoard.getSquareMask(target);
+            }
+        }
+        this.occupancy ^= kingMask;
+        return safeTargets;
+    }
+
+    //The capturing and the captured pawn leave the same rank at once, which no pin test sees, so the position after
+    //the capture is checked as a whole
+    private boolean isEnPassantCaptureLegal(final int from) {
+        final Alliance opponent = opponentOf(this.sideToMove);
+        final int kingSquare = getKingSquare(this.sideToMove);
+        final long capturedPawn = BitBoard.getSquareMask(BitBoard.getSquare(BitBoard.getFile(this.enPassantSquare),
+                BitBoard.getRank(from)));
+        final long occupancyAfterCapture = (this.occupancy ^ BitBoard.getSquareMask(from) ^ capturedPawn) |
+                BitBoard.getSquareMask(this.enPassantSquare);
+        final long queens = getPieces(opponent, PieceType.QUEEN);
+        return (Attacks.pawnAttacks(this.sideToMove, kingSquare) & getPieces(opponent, PieceType.PAWN) &
+                ~capturedPawn) == BitBoard.EMPTY &&
+                (Attacks.knightAttacks(kingSquare) & getPieces(opponent, PieceType.KNIGHT)) == BitBoard.EMPTY &&
+                (Attacks.bishopAttacks(kingSquare, occupancyAfterCapture) &
+                        (getPieces(opponent, PieceType.BISHOP) | queens)) == BitBoard.EMPTY &&
+                (Attacks.rookAttacks(kingSquare, occupancyAfterCapture) &
+                        (getPieces(opponent, PieceType.ROOK) | queens)) == BitBoard.EMPTY;
+    }
+
+    private int addPieceMoves(final int square, final int moveTypes, final int[] moves, final int start) {
+        final PieceType pieceType = this.pieceTypes[square];
+        if (pieceType.isPawn()) {
+            return addPawnMoves(square, moveTypes, moves, start);
+        }
+        long targets = BitBoard.EMPTY;
+        if ((moveTypes & CAPTURES) != 0) {
+            targets |= getPieces(opponentOf(this.sideToMove));
+        }
+        if ((moveTypes & QUIET_MOVES) != 0) {
+            targets |= ~this.occupancy;
+        }
+        targets &= Attacks.pieceAttacks(pieceType, square, this.occupancy);
+        if (!pieceType.isKing()) {
+            targets &= getLegalTargets(square);
+        } else if (this.isLegalOnly) {
+            targets = removeAttackedSquares(square, targets);
+        }
+        int end = start;
+        while (targets != BitBoard.EMPTY) {
+            final int target = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves[end++] = SearchMove.create(square, target, pieceType, this.pieceTypes[target], null,
+                    SearchMove.QUIET);
+        }
+        return end;
+    }
+
+    public void makeMove(final int move) {
+        final int from = SearchMove.getFrom(move);
+        final int to = SearchMove.getTo(move);
+        final Alliance mover = this.sideToMove;
+        final Alliance opponent = opponentOf(mover);
+        this.moveHistory[this.historySize] = move;
+        this.capturedPieceHistory[this.historySize] = SearchMove.getCapturedPieceType(move);
+        this.castlingRightsHistory[this.historySize] = this.castlingRights;
+        this.enPassantSquareHistory[this.historySize] = this.enPassantSquare;
+        this.halfMoveClockHistory[this.historySize] = this.halfMoveClock;
+        this.castledHistory[this.historySize] = this.castled[mover.ordinal()];
+        this.zobristKeyHistory[this.historySize] = this.zobristKey;
+        this.movedPiecesHistory[this.historySize] = this.movedPieces;
+        ++this.historySize;
+        this.isLegalMoveGenerationPrepared[this.historySize] = false;
+        final int castlingRightsBeforeMove = this.castlingRights;
+        if (this.enPassantSquare != NO_SQUARE) {
+            this.zobristKey ^= Zobrist.getEnPassantKey(BitBoard.getFile(this.enPassantSquare));
+        }
+
+        if (SearchMove.isCastlingMove(move)) {
+            final int rank = BitBoard.getRank(from);
+            removePiece(from);
+            removePiece(getCastlingRookStartSquare(move, rank));
+            putPiece(mover, PieceType.KING, to);
+            putPiece(mover, PieceType.ROOK, getCastlingRookTargetSquare(move, rank));
+            this.movedPieces &= ~(BitBoard.getSquareMask(from) |
+                    BitBoard.getSquareMask(getCastlingRookStartSquare(move, rank)));
+            this.movedPieces |= BitBoard.getSquareMask(to) |
+                    BitBoard.getSquareMask(getCastlingRookTargetSquare(move, rank));
+            this.castlingRights &= ~BoardUtils.getCastlingRights(mover);
+            this.castled[mover.ordinal()] = true;
+            ++this.halfMoveClock;
+        } else {
+            if (SearchMove.isEnPassantCapture(move)) {
+                final int capturedPawnSquare = BitBoard.getSquare(BitBoard.getFile(to), BitBoard.getRank(from));
+                removePiece(capturedPawnSquare);
+                this.movedPieces &= ~BitBoard.getSquareMask(capturedPawnSquare);
+            } else if (SearchMove.isCapturingMove(move)) {
+                removePiece(to);
+            }
+            removePiece(from);
+            putPiece(mover, SearchMove.isPawnPromotionMove(move)
+                    ? SearchMove.getPromotionPieceType(move)
+                    : SearchMove.getMovedPieceType(move), to);
+            this.movedPieces = (this.movedPieces & ~BitBoard.getSquareMask(from)) | BitBoard.getSquareMask(to);
+            this.castlingRights &= this.castlingRightsMasks[from] & this.castlingRightsMasks[to];
+            if (SearchMove.getMovedPieceType(move).isPawn() || SearchMove.isCapturingMove(move)) {
+                this.halfMoveClock = 0;
+            } else {
+                ++this.halfMoveClock;
+            }
+        }
+        this.enPassantSquare = SearchMove.isPawnJump(move) ? (from + to) / 2 : NO_SQUARE;
+        if (this.enPassantSquare != NO_SQUARE) {
+            this.zobristKey ^= Zobrist.getEnPassantKey(BitBoard.getFile(this.enPassantSquare));
+        }
+        this.zobristKey ^= Zobrist.getCastlingKey(castlingRightsBeforeMove) ^
+                Zobrist.getCastlingKey(this.castlingRights) ^ Zobrist.getSideToMoveKey();
+        this.sideToMove = opponent;
+    }
+
+    //Passes the turn, the search counterpart of NullMove. Only the side to move and the en passant square change
+    public void makeNullMove() {
+        this.moveHistory[this.historySize] = SearchMove.NO_MOVE;
+        this.capturedPieceHistory[this.historySize] = null;
+        this.castlingRightsHistory[this.historySize] = this.castlingRights;
+        this.enPassantSquareHistory[this.historySize] = this.enPassantSquare;
+        this.halfMoveClockHistory[this.historySize] = this.halfMoveClock;
+        this.castledHistory[this.historySize] = this.castled[this.sideToMove.ordinal()];
+        this.zobristKeyHistory[this.historySize] = this.zobristKey;
+        ++this.historySize;
+        this.isLegalMoveGenerationPrepared[this.historySize] = false;
+        if (this.enPassantSquare != NO_SQUARE) {
+            this.zobristKey ^= Zobrist.getEnPassantKey(BitBoard.getFile(this.enPassantSquare));
+            this.enPassantSquare = NO_SQUARE;
+        }
+        ++this.halfMoveClock;
+        this.zobristKey ^= Zobrist.getSideToMoveKey();
+        this.sideToMove = opponentOf(this.sideToMove);
+    }
+
+    public void unmakeNullMove() {
+        --this.historySize;
+        this.enPassantSquare = this.enPassantSquareHistory[this.historySize];
+        this.halfMoveClock = this.halfMoveClockHistory[this.historySize];
+        this.zobristKey = this.zobristKeyHistory[this.historySize];
+        this.sideToMove = opponentOf(this.sideToMove);
+    }
+
+    public void unmakeMove() {
+        --this.historySize;
+        final int move = this.moveHistory[this.historySize];
+        final Alliance mover = opponentOf(this.sideToMove);
+        final int from = SearchMove.getFrom(move);
+        final int to = SearchMove.getTo(move);
+
+        if (SearchMove.isCastlingMove(move)) {
+            final int rank = BitBoard.getRank(from);
+            removePiece(to);
+            removePiece(getCastlingRookTargetSquare(move, rank));
+            putPiece(mover, PieceType.KING, from);
+            putPiece(mover, PieceType.ROOK, getCastlingRookStartSquare(move, rank));
+        } else {
+            removePiece(to);
+            putPiece(mover, SearchMove.getMovedPieceType(move), from);
+            final PieceType capturedPieceType = this.capturedPieceHistory[this.historySize];
+            if (SearchMove.isEnPassantCapture(move)) {
+                putPiece(this.sideToMove, capturedPieceType, BitBoard.getSquare(BitBoard.getFile(to),
+                        BitBoard.getRank(from)));
+            } else if (capturedPieceType != null) {
+                putPiece(this.sideToMove, capturedPieceType, to);
+            }
+        }
+        this.castlingRights = this.castlingRightsHistory[this.historySize];
+        this.enPassantSquare = this.enPassantSquareHistory[this.historySize];
+        this.halfMoveClock = this.halfMoveClockHistory[this.historySize];
+        this.castled[mover.ordinal()] = this.castledHistory[this.historySize];
+        this.zobristKey = this.zobristKeyHistory[this.historySize];
+        this.movedPieces = this.movedPiecesHistory[this.historySize];
+        this.sideToMove = mover;
+    }
+
+    public String toDecoratedString() {
+        final StringBuilder stringBuilder = new StringBuilder("\n");
+        for (int y = 0; y < BoardUtils.BOARD_SIZE; ++y) {
+            for (int x = 0; x < BoardUtils.BOARD_SIZE; ++x) {
+                final int square = BitBoard.getSquare(x, y);
+                final PieceType pieceType = this.pieceTypes[square];
+                if (pieceType == null) {
+                    stringBuilder.append((x + y) % 2 == 0 ? "[ ]" : "[.]");
+                } else {
+                    final String tileText = pieceType.getName();
+                    stringBuilder.append(String.format("[%s]", this.pieceAlliances[square].isBlack()
+                            ? tileText.toUpperCase() : tileText));
+                }
+            }
+            stringBuilder.append("\n");
+        }
+        return stringBuilder.toString();
+    }
+
+    public static Alliance opponentOf(final Alliance alliance) {
+        return alliance.isWhite() ? Alliance.BLACK : Alliance.WHITE;
+    }
+
+    private int getCastlingRookStartSquare(final int castling, final int rank) {
+        return BitBoard.getSquare(SearchMove.isKingSideCastling(castling)
+                ? this.kingsRookStartFile
+                : this.queensRookStartFile, rank);
+    }
+
+    private static int getCastlingRookTargetSquare(final int castling, final int rank) {
+        return BitBoard.getSquare(SearchMove.isKingSideCastling(castling)
+                ? KING_SIDE_CASTLING_ROOK_TARGET_FILE
+                : QUEEN_SIDE_CASTLING_ROOK_TARGET_FILE, rank);
+    }
+
+    private int addPawnMoves(final int square, final int moveTypes, final int[] moves, final int start) {
+        final Alliance alliance = this.sideToMove;
+        final int x = BitBoard.getFile(square);
+        final int y = BitBoard.getRank(square);
+        final int forwardY = y + alliance.getDirectionY();
+        if (!BoardUtils.isValidRank(forwardY)) {
+            return start;
+        }
+        int end = start;
+        final int forwardSquare = BitBoard.getSquare(x, forwardY);
+        final boolean isPromotion = alliance.isPawnPromotionSquare(BitBoard.getLocation(forwardSquare));
+        final long legalTargets = getLegalTargets(square);
+        if (this.pieceTypes[forwardSquare] == null) {
+            if ((moveTypes & (isPromotion ? CAPTURES : QUIET_MOVES)) != 0 &&
+                    (legalTargets & BitBoard.getSquareMask(forwardSquare)) != BitBoard.EMPTY) {
+                end = addPawnMove(square, forwardSquare, null, moves, end);
+            }
+            final int startRank = alliance.isWhite() ? BoardUtils.SECOND_RANK : BoardUtils.SEVENTH_RANK;
+            final int jumpSquare = BitBoard.getSquare(x, forwardY + alliance.getDirectionY());
+            if ((moveTypes & QUIET_MOVES) != 0 && y == startRank && this.pieceTypes[jumpSquare] == null &&
+                    (legalTargets & BitBoard.getSquareMask(jumpSquare)) != BitBoard.EMPTY) {
+                moves[end++] = SearchMove.create(square, jumpSquare, PieceType.PAWN, null, null,
+                        SearchMove.PAWN_JUMP);
+            }
+        }
+        if ((moveTypes & CAPTURES) == 0) {
+            return end;
+        }
+        final long attacks = Attacks.pawnAttacks(alliance, square);
+        long targets = attacks & getPieces(opponentOf(alliance)) & legalTargets;
+        while (targets != BitBoard.EMPTY) {
+            final int targetSquare = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            end = addPawnMove(square, targetSquare, this.pieceTypes[targetSquare], moves, end);
+        }
+        if (this.enPassantSquare != NO_SQUARE && (attacks & BitBoard.getSquareMask(this.enPassantSquare)) !=
+                BitBoard.EMPTY && (!this.isLegalOnly || isEnPassantCaptureLegal(square))) {
+            moves[end++] = SearchMove.create(square, this.enPassantSquare, PieceType.PAWN, PieceType.PAWN, null,
+                    SearchMove.EN_PASSANT_CAPTURE);
+        }
+        return end;
+    }
+
+    private int addPawnMove(final int from, final int to, final PieceType capturedPieceType, final int[] moves,
+                            final int start) {
+        if (!this.sideToMove.isPawnPromotionSquare(BitBoard.getLocation(to))) {
+            moves[start] = SearchMove.create(from, to, PieceType.PAWN, capturedPieceType, null, SearchMove.QUIET);
+            return start + 1;
+        }
+        int end = start;
+        for (final PieceType promotionPieceType : PROMOTION_PIECE_TYPES) {
+            moves[end++] = SearchMove.create(from, to, PieceType.PAWN, capturedPieceType, promotionPieceType,
+                    SearchMove.QUIET);
+        }
+        return end;
+    }
+
+    private int addCastlingMoves(final int[] moves, final int start) {
+        final Alliance alliance = this.sideToMove;
+        if (!canCastle(alliance)) {
+            return start;
+        }
+        final int kingSquare = getKingSquare(alliance);
+        if (isSquareAttacked(kingSquare, opponentOf(alliance))) {
+            return start;
+        }
+        int end = start;
+        if ((this.castlingRights & BoardUtils.KING_SIDE_CASTLINGS & BoardUtils.getCastlingRights(alliance)) != 0) {
+            end = addCastlingMove(kingSquare, this.kingsRookStartFile, KING_SIDE_CASTLING_KING_TARGET_FILE,
+                    KING_SIDE_CASTLING_ROOK_TARGET_FILE, SearchMove.KING_SIDE_CASTLING, moves, end);
+        }
+        if ((this.castlingRights & BoardUtils.QUEEN_SIDE_CASTLINGS & BoardUtils.getCastlingRights(alliance)) != 0) {
+            end = addCastlingMove(kingSquare, this.queensRookStartFile, QUEEN_SIDE_CASTLING_KING_TARGET_FILE,
+                    QUEEN_SIDE_CASTLING_ROOK_TARGET_FILE, SearchMove.QUEEN_SIDE_CASTLING, moves, end);
+        }
+        return end;
+    }
+
+    private int addCastlingMove(final int kingSquare, final int rookFile, final int kingTargetFile,
+                                final int rookTargetFile, final int kind, final int[] moves, final int start) {
+        final int rank = BitBoard.getRank(kingSquare);
+        final int kingFile = BitBoard.getFile(kingSquare);
+        final int rookSquare = BitBoard.getSquare(rookFile, rank);
+        final int leftFile = Math.min(Math.min(kingFile, kingTargetFile), Math.min(rookFile, rookTargetFile));
+        final int rightFile = Math.max(Math.max(kingFile, kingTargetFile), Math.max(rookFile, rookTargetFile));
+        for (int x = leftFile; x <= rightFile; ++x) {
+            final int square = BitBoard.getSquare(x, rank);
+            if (square != kingSquare && square != rookSquare && this.pieceTypes[square] != null) {
+                return start;
+            }
+        }
+        //The castling rook must not shield the squares the king passes through
+        final long castlingPiecesMask = BitBoard.getSquareMask(kingSquare) | BitBoard.getSquareMask(rookSquare);
+        this.occupancy ^= castlingPiecesMask;
+        boolean isKingPathSafe = true;
+        final int step = kingTargetFile >= kingFile ? 1 : -1;
+        for (int x = kingFile; isKingPathSafe && x != kingTargetFile + step; x += step) {
+            isKingPathSafe = !isSquareAttacked(BitBoard.getSquare(x, rank), opponentOf(this.sideToMove));
+        }
+        this.occupancy ^= castlingPiecesMask;
+        if (!isKingPathSafe) {
+            return start;
+        }
+        moves[start] = SearchMove.create(kingSquare, BitBoard.getSquare(kingTargetFile, rank), PieceType.KING, null,
+                null, kind);
+        return start + 1;
+    }
+
+    private int countMinorPieces(final Alliance alliance) {
+        return Long.bitCount(getPieces(alliance, PieceType.KNIGHT)) +
+                Long.bitCount(getPieces(alliance, PieceType.BISHOP));
+    }
+
+    private void putPiece(final Alliance alliance, final PieceType pieceType, final int square) {
+        final long mask = BitBoard.getSquareMask(square);
+        this.pieceBitBoards[alliance.ordinal()][pieceType.ordinal()] |= mask;
+        this.allianceBitBoards[alliance.ordinal()] |= mask;
+        this.occupancy |= mask;
+        this.zobristKey ^= Zobrist.getPieceKey(alliance, pieceType, square);
+        this.pieceTypes[square] = pieceType;
+        this.pieceAlliances[square] = alliance;
+    }
+
+    private void removePiece(final int square) {
+        final long mask = BitBoard.getSquareMask(square);
+        final Alliance alliance = this.pieceAlliances[square];
+        this.pieceBitBoards[alliance.ordinal()][this.pieceTypes[square].ordinal()] &= ~mask;
+        this.allianceBitBoards[alliance.ordinal()] &= ~mask;
+        this.occupancy &= ~mask;
+        this.zobristKey ^= Zobrist.getPieceKey(alliance, this.pieceTypes[square], square);
+        this.pieceTypes[square] = null;
+        this.pieceAlliances[square] = null;
+    }
+
+    private void createCastlingRightsMasks() {
+        for (int square = 0; square < BoardUtils.TOTAL_NUMBER_OF_TILES; ++square) {
+            this.castlingRightsMasks[square] = ~0;
+        }
+        for (final Alliance alliance : Alliance.values()) {
+            final int rights = this.castlingRights & BoardUtils.getCastlingRights(alliance);
+            if (rights == 0) {
+                continue;
+            }
+            final int kingSquare = getKingSquare(alliance);
+            final int rank = BitBoard.getRank(kingSquare);
+            this.castlingRightsMasks[kingSquare] &= ~rights;
+            this.castlingRightsMasks[BitBoard.getSquare(this.kingsRookStartFile, rank)] &=
+                    ~(rights & BoardUtils.KING_SIDE_CASTLINGS);
+            this.castlingRightsMasks[BitBoard.getSquare(this.queensRookStartFile, rank)] &=
+                    ~(rights & BoardUtils.QUEEN_SIDE_CASTLINGS);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.igorternyuk.engine.board;
+
+import com.igorternyuk.engine.Alliance;
+import com.igorternyuk.engine.pieces.Pawn;
+import com.igorternyuk.engine.pieces.Piece;
+import com.igorternyuk.engine.pieces.PieceType;
+
+import java.util.Random;
+
+/**
+ * Random keys for Zobrist hashing. A position key is the XOR of the keys of all pieces on their squares,
+ * the side to move key when black is to move, the key of the castling rights and the key of the en passant
+ * file after a pawn jump. Moves update the key incrementally by XOR-ing out what disappears and XOR-ing in
+ * what appears. The generator is seeded so that keys are stable between runs.
+ */
+public final class Zobrist {
+    private static final long SEED = 0x5DEECE66DL;
+    private static final int NUMBER_OF_CASTLING_RIGHTS_COMBINATIONS = 16;
+    private static final long[][][] PIECE_KEYS =
+            new long[BitBoard.NUMBER_OF_ALLIANCES][BitBoard.NUMBER_OF_PIECE_TYPES][BoardUtils.TOTAL_NUMBER_OF_TILES];
+    private static final long[] CASTLING_KEYS = new long[NUMBER_OF_CASTLING_RIGHTS_COMBINATIONS];
+    private static final long[] EN_PASSANT_FILE_KEYS = new long[BoardUtils.BOARD_SIZE];
+    private static final long SIDE_TO_MOVE_KEY;
+
+    static {
+        final Random random = new Random(SEED);
+        for (final long[][] allianceKeys : PIECE_KEYS) {
+            for (final long[] pieceKeys : allianceKeys) {
+                for (int square = 0; square < pieceKeys.length; ++square) {
+                    pieceKeys[square] = random.nextLong();
+                }
+            }
+        }
+        for (int i = 1; i < CASTLING_KEYS.length; ++i) {
+            CASTLING_KEYS[i] = random.nextLong();
+        }
+        for (int file = 0; file < EN_PASSANT_FILE_KEYS.length; ++file) {
+            EN_PASSANT_FILE_KEYS[file] = random.nextLong();
+        }
+        SIDE_TO_MOVE_KEY = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    public static long getPieceKey(final Alliance alliance, final PieceType pieceType, final int square) {
+        return PIECE_KEYS[alliance.ordinal()][pieceType.ordinal()][square];
+    }
+
+    public static long getPieceKey(final Alliance alliance, final PieceType pieceType, final Location location) {
+        return getPieceKey(alliance, pieceType, BitBoard.getSquare(location));
+    }
+
+    public static long getPieceKey(final Piece piece) {
+        return getPieceKey(piece.getAlliance(), piece.getPieceType(), piece.getLocation());
+    }
+
+    public static long getCastlingKey(final int castlingRights) {
+        return CASTLING_KEYS[castlingRights];
+    }
+
+    public static long getEnPassantKey(final int file) {
+        return EN_PASSANT_FILE_KEYS[file];
+    }
+
+    public static long getEnPassantKey(final Pawn enPassantPawn) {
+        return enPassantPawn == null ? 0L : getEnPassantKey(enPassantPawn.getLocation().getX());
+    }
+
+    public static long getSideToMoveKey() {
+        return SIDE_TO_MOVE_KEY;
+    }
+
+    public static long calculateKey(final Board board) {
+        long key = 0L;
+        for (final Piece piece : board.getAllActivePieces()) {
+            key ^= getPieceKey(piece);
+        }
+        if (board.getCurrentPlayer().getAlliance().isBlack()) {
+            key ^= SIDE_TO_MOVE_KEY;
+        }
+        return key ^ getCastlingKey(board.getCastlingRights()) ^ getEnPassantKey(board.getEnPassantPawn());
+    }
+}
@@ -32,6 +32,7 @@ public abstract class CapturingMove extends Move {
         builder.setQueensRookStartCoordinateX(this.board.getQueensRookStartCoordinateX());
         builder.setMoveMaker(this.board.getCurrentPlayer().getOpponentAlliance());
         builder.setTransitionMove(this);
+        builder.setZobristKey(calculateTransitedZobristKey());
         builder.setCheckEndGamePhase(true);
         return builder.build();
     }
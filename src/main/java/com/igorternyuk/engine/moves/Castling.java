@@ -2,6 +2,7 @@ package com.igorternyuk.engine.moves;
 
 import com.igorternyuk.engine.board.Board;
 import com.igorternyuk.engine.board.Location;
+import com.igorternyuk.engine.board.Zobrist;
 import com.igorternyuk.engine.pieces.Piece;
 import com.igorternyuk.engine.pieces.Rook;
 
@@ -72,6 +73,10 @@ public abstract class Castling extends Move {
         builder.setQueensRookStartCoordinateX(this.board.getQueensRookStartCoordinateX());
         builder.setMoveMaker(this.board.getCurrentPlayer().getOpponentAlliance());
         builder.setTransitionMove(this);
+        builder.setZobristKey(calculateTransitedZobristKey()
+                ^ Zobrist.getPieceKey(this.castledRook)
+                ^ Zobrist.getPieceKey(this.castledRook.getAlliance(), this.castledRook.getPieceType(),
+                this.castledRookEndLocation));
         return builder.build();
     }
 
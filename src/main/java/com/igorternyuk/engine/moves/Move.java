@@ -1,8 +1,10 @@
 package com.igorternyuk.engine.moves;
 
+import com.igorternyuk.engine.board.BitBoard;
 import com.igorternyuk.engine.board.Board;
 import com.igorternyuk.engine.board.BoardUtils;
 import com.igorternyuk.engine.board.Location;
+import com.igorternyuk.engine.board.Zobrist;
 import com.igorternyuk.engine.pieces.Piece;
 import com.igorternyuk.engine.pieces.Rook;
 
@@ -63,6 +65,22 @@ public abstract class Move {
 
     public abstract Board execute();
 
+    //Key of the position after this move, derived from the key of the current position
+    protected long calculateTransitedZobristKey() {
+        final Location start = this.movedPiece.getLocation();
+        long key = this.board.getZobristKey()
+                ^ Zobrist.getSideToMoveKey()
+                ^ Zobrist.getEnPassantKey(this.board.getEnPassantPawn())
+                ^ Zobrist.getCastlingKey(this.board.getCastlingRights())
+                ^ Zobrist.getCastlingKey(this.board.getCastlingRightsAfterMove(start, this.destination))
+                ^ Zobrist.getPieceKey(this.movedPiece)
+                ^ Zobrist.getPieceKey(this.movedPiece.getAlliance(), this.movedPiece.getPieceType(), this.destination);
+        if (isCapturingMove()) {
+            key ^= Zobrist.getPieceKey(getCapturedPiece());
+        }
+        return key;
+    }
+
     public Board getBoard() {
         return this.board;
     }
@@ -90,6 +108,24 @@ public abstract class Move {
             return NULL_MOVE;
         }
 
+        public static Move createMove(final Board board, final int searchMove) {
+            final Location currentLocation = BitBoard.getLocation(SearchMove.getFrom(searchMove));
+            final Location destination = BitBoard.getLocation(SearchMove.getTo(searchMove));
+            final Collection<Move> legalMoves = board.getCurrentPlayer().getLegalMoves();
+            for(final Move move: legalMoves){
+                if (move.getMovedPiece().getLocation().equals(currentLocation) &&
+                    move.getDestination().equals(destination) &&
+                    move.isCastlingMove() == SearchMove.isCastlingMove(searchMove) &&
+                    move.isPawnPromotionMove() == SearchMove.isPawnPromotionMove(searchMove)){
+                    if(!move.isPawnPromotionMove() || ((PawnPromotion) move).getPromotedPiece().getPieceType()
+                            .equals(SearchMove.getPromotionPieceType(searchMove))) {
+                        return move;
+                    }
+                }
+            }
+            return NULL_MOVE;
+        }
+
         public static Move createPawnPromotionMove(final Board board, final Location currentLocation,
                                                    final Location destination, final Piece promotedPiece) {
              final Collection<Move> legalMoves = board.getCurrentPlayer().getLegalMoves();
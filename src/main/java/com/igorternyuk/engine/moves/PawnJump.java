@@ -2,6 +2,7 @@ package com.igorternyuk.engine.moves;
 
 import com.igorternyuk.engine.board.Board;
 import com.igorternyuk.engine.board.Location;
+import com.igorternyuk.engine.board.Zobrist;
 import com.igorternyuk.engine.pieces.Pawn;
 import com.igorternyuk.engine.pieces.Piece;
 
@@ -27,6 +28,7 @@ public class PawnJump extends PawnMove {
         builder.setQueensRookStartCoordinateX(this.board.getQueensRookStartCoordinateX());
         builder.setMoveMaker(this.board.getCurrentPlayer().getOpponentAlliance());
         builder.setTransitionMove(this);
+        builder.setZobristKey(calculateTransitedZobristKey() ^ Zobrist.getEnPassantKey(jumpedPawn));
         return builder.build();
     }
 
@@ -1,6 +1,8 @@
 package com.igorternyuk.engine.moves;
 
 import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.board.Tile;
+import com.igorternyuk.engine.board.Zobrist;
 import com.igorternyuk.engine.pieces.Pawn;
 import com.igorternyuk.engine.pieces.Piece;
 
@@ -52,10 +54,24 @@ public class PawnPromotion extends PawnMove {
         builder.setQueensRookStartCoordinateX(this.board.getQueensRookStartCoordinateX());
         builder.setMoveMaker(this.board.getCurrentPlayer().getOpponentAlliance());
         builder.setTransitionMove(this);
+        builder.setZobristKey(calculatePromotedZobristKey(promotedPawnBoard));
         builder.setCheckEndGamePhase(true);
         return builder.build();
     }
 
+    private long calculatePromotedZobristKey(final Board promotedPawnBoard) {
+        long key = promotedPawnBoard.getZobristKey()
+                ^ Zobrist.getPieceKey(this.promotedPawn.getAlliance(), this.promotedPawn.getPieceType(),
+                this.destination)
+                ^ Zobrist.getPieceKey(this.promotedPiece);
+        //A promotion by capture decorates a plain pawn move, so the captured piece is still in the key
+        final Tile destinationTile = this.board.getTile(this.destination);
+        if (destinationTile.isOccupied()) {
+            key ^= Zobrist.getPieceKey(destinationTile.getPiece());
+        }
+        return key;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 37;
@@ -0,0 +1,130 @@
+package com.igorternyuk.engine.moves;
+
+import com.igorternyuk.engine.board.BitBoard;
+import com.igorternyuk.engine.board.BoardUtils;
+import com.igorternyuk.engine.pieces.PieceType;
+
+/**
+ * Moves of {@link com.igorternyuk.engine.board.SearchBoard} packed into an int, so the search keeps them in
+ * primitive arrays instead of allocating an object per move. Bits 0-5 hold the from square, bits 6-11 the
+ * destination, bits 12-14 the promotion piece type, bits 15-17 the moved piece type, bits 18-20 the captured
+ * piece type and bits 21-23 the kind of the move. Piece types that may be absent are stored as ordinal + 1.
+ */
+public final class SearchMove {
+    //Zero would be a quiet move from a8 to a8. The only move that stays on its square is the castling of a Chess960
+    //king already on its castling square, the c or g file, and its kind is never zero, so no real move collides
+    public static final int NO_MOVE = 0;
+    public static final int QUIET = 0;
+    public static final int PAWN_JUMP = 1;
+    public static final int EN_PASSANT_CAPTURE = 2;
+    public static final int KING_SIDE_CASTLING = 3;
+    public static final int QUEEN_SIDE_CASTLING = 4;
+
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int PIECE_TYPE_MASK = 0x7;
+    private static final int TO_SHIFT = 6;
+    private static final int PROMOTION_SHIFT = 12;
+    private static final int MOVED_PIECE_SHIFT = 15;
+    private static final int CAPTURED_PIECE_SHIFT = 18;
+    private static final int KIND_SHIFT = 21;
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+
+    private SearchMove() {
+    }
+
+    public static int create(final int from, final int to, final PieceType movedPieceType,
+                             final PieceType capturedPieceType, final PieceType promotionPieceType, final int kind) {
+        return from | to << TO_SHIFT | encodePieceType(promotionPieceType) << PROMOTION_SHIFT |
+                movedPieceType.ordinal() << MOVED_PIECE_SHIFT |
+                encodePieceType(capturedPieceType) << CAPTURED_PIECE_SHIFT | kind << KIND_SHIFT;
+    }
+
+    //The search counterpart of a move of the immutable Board
+    public static int create(final Move move) {
+        final int kind;
+        if (move.isKingSideCastling()) {
+            kind = KING_SIDE_CASTLING;
+        } else if (move.isQueenSideCastling()) {
+            kind = QUEEN_SIDE_CASTLING;
+        } else if (move instanceof PawnEnPassantCapture) {
+            kind = EN_PASSANT_CAPTURE;
+        } else if (move instanceof PawnJump) {
+            kind = PAWN_JUMP;
+        } else {
+            kind = QUIET;
+        }
+        return create(BitBoard.getSquare(move.getMovedPiece().getLocation()),
+                BitBoard.getSquare(move.getDestination()), move.getMovedPiece().getPieceType(),
+                move.isCapturingMove() ? move.getCapturedPiece().getPieceType() : null,
+                move.isPawnPromotionMove() ? ((PawnPromotion) move).getPromotedPiece().getPieceType() : null, kind);
+    }
+
+    public static int getFrom(final int move) {
+        return move & SQUARE_MASK;
+    }
+
+    public static int getTo(final int move) {
+        return move >>> TO_SHIFT & SQUARE_MASK;
+    }
+
+    public static PieceType getMovedPieceType(final int move) {
+        return PIECE_TYPES[move >>> MOVED_PIECE_SHIFT & PIECE_TYPE_MASK];
+    }
+
+    public static PieceType getCapturedPieceType(final int move) {
+        return decodePieceType(move >>> CAPTURED_PIECE_SHIFT & PIECE_TYPE_MASK);
+    }
+
+    public static PieceType getPromotionPieceType(final int move) {
+        return decodePieceType(move >>> PROMOTION_SHIFT & PIECE_TYPE_MASK);
+    }
+
+    public static int getKind(final int move) {
+        return move >>> KIND_SHIFT & PIECE_TYPE_MASK;
+    }
+
+    public static boolean isCapturingMove(final int move) {
+        return (move >>> CAPTURED_PIECE_SHIFT & PIECE_TYPE_MASK) != 0;
+    }
+
+    public static boolean isCastlingMove(final int move) {
+        return isKingSideCastling(move) || isQueenSideCastling(move);
+    }
+
+    public static boolean isKingSideCastling(final int move) {
+        return getKind(move) == KING_SIDE_CASTLING;
+    }
+
+    public static boolean isQueenSideCastling(final int move) {
+        return getKind(move) == QUEEN_SIDE_CASTLING;
+    }
+
+    public static boolean isPawnPromotionMove(final int move) {
+        return (move >>> PROMOTION_SHIFT & PIECE_TYPE_MASK) != 0;
+    }
+
+    public static boolean isEnPassantCapture(final int move) {
+        return getKind(move) == EN_PASSANT_CAPTURE;
+    }
+
+    public static boolean isPawnJump(final int move) {
+        return getKind(move) == PAWN_JUMP;
+    }
+
+    public static String toString(final int move) {
+        if (move == NO_MOVE) {
+            return "none";
+        }
+        final String notation = BoardUtils.getAlgebraicNotationFromLocation(BitBoard.getLocation(getFrom(move))) +
+                BoardUtils.getAlgebraicNotationFromLocation(BitBoard.getLocation(getTo(move)));
+        return isPawnPromotionMove(move) ? notation + getPromotionPieceType(move).getName() : notation;
+    }
+
+    private static int encodePieceType(final PieceType pieceType) {
+        return pieceType == null ? 0 : pieceType.ordinal() + 1;
+    }
+
+    private static PieceType decodePieceType(final int code) {
+        return code == 0 ? null : PIECE_TYPES[code - 1];
+    }
+}
@@ -0,0 +1,133 @@
+package com.igorternyuk.engine.perft;
+
+import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.board.SearchBoard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Perft over SearchBoard split across a fork/join pool. Every move of the upper plies becomes a task with its own
+ * board copy, smaller subtrees are counted serially. Subtree counts are memoized in a shared {@link PerftCache},
+ * which pays off because the same positions are reached by many move orders.
+ * Usage: ParallelPerft [depth] [threads] - checks the reference suite, meant for the nightly correctness job.
+ */
+public final class ParallelPerft {
+    public static final int DEFAULT_CACHE_SIZE_IN_MEGABYTES = 64;
+    private static final int DEFAULT_MAX_DEPTH = 5;
+    //Subtrees of this depth or less are not worth a task
+    private static final int SERIAL_DEPTH = 3;
+
+    private final ForkJoinPool pool;
+    private final PerftCache cache;
+
+    public ParallelPerft(final ForkJoinPool pool) {
+        this(pool, new PerftCache(DEFAULT_CACHE_SIZE_IN_MEGABYTES));
+    }
+
+    public ParallelPerft(final ForkJoinPool pool, final PerftCache cache) {
+        this.pool = pool;
+        this.cache = cache;
+    }
+
+    public long perft(final Board board, final int depth) {
+        return this.pool.invoke(new PerftTask(new SearchBoard(board), depth));
+    }
+
+    public PerftCache getCache() {
+        return this.cache;
+    }
+
+    public static void main(String[] args) {
+        final int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_MAX_DEPTH;
+        final int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        boolean isEverythingCorrect = true;
+        try {
+            for (final PerftPosition position : PerftPosition.values()) {
+                final Board board = position.createBoard();
+                //A fresh cache per position keeps the timings of the positions independent
+                final ParallelPerft parallelPerft = new ParallelPerft(pool);
+                for (int depth = 1; depth <= Math.min(maxDepth, position.getMaxDepth()); ++depth) {
+                    final long startTime = System.nanoTime();
+                    final long nodes = parallelPerft.perft(board, depth);
+                    final long milliseconds = Math.max(1, (System.nanoTime() - startTime) / 1000000);
+                    final boolean isCorrect = nodes == position.getExpectedNodes(depth);
+                    isEverythingCorrect &= isCorrect;
+                    System.out.println(String.format("%-18s depth %d nodes %12d %s threads %d %d ms %d nps",
+                            position, depth, nodes, isCorrect ? "OK" : "FAILED, expected " +
+                                    position.getExpectedNodes(depth), threads, milliseconds,
+                            nodes * 1000 / milliseconds));
+                }
+                System.out.println(parallelPerft.getCache());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        System.out.println(isEverythingCorrect ? "All perft counts are correct" : "PERFT FAILED");
+        if (!isEverythingCorrect) {
+            System.exit(1);
+        }
+    }
+
+    //Plies share one buffer the same way as in Perft, each generates behind the moves of its parent
+    private long countSerially(final SearchBoard board, final int depth, final int[] moves, final int start) {
+        if (depth == 0) {
+            return 1;
+        }
+        final int end = board.generateLegalMoves(moves, start);
+        if (depth == 1) {
+            return end - start;
+        }
+        final long cachedNodes = this.cache.probe(board.getZobristKey(), depth);
+        if (cachedNodes != PerftCache.NO_ENTRY) {
+            return cachedNodes;
+        }
+        long nodes = 0;
+        for (int i = start; i < end; ++i) {
+            board.makeMove(moves[i]);
+            nodes += countSerially(board, depth - 1, moves, end);
+            board.unmakeMove();
+        }
+        this.cache.store(board.getZobristKey(), depth, nodes);
+        return nodes;
+    }
+
+    private final class PerftTask extends RecursiveTask<Long> {
+        private final SearchBoard board;
+        private final int depth;
+
+        private PerftTask(final SearchBoard board, final int depth) {
+            this.board = board;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            if (this.depth <= SERIAL_DEPTH) {
+                return countSerially(this.board, this.depth,
+                        new int[Math.max(1, this.depth) * SearchBoard.MAX_MOVES], 0);
+            }
+            final long cachedNodes = cache.probe(this.board.getZobristKey(), this.depth);
+            if (cachedNodes != PerftCache.NO_ENTRY) {
+                return cachedNodes;
+            }
+            final List<PerftTask> tasks = new ArrayList<>();
+            for (final int move : this.board.generateLegalMoves()) {
+                final SearchBoard child = new SearchBoard(this.board);
+                child.makeMove(move);
+                final PerftTask task = new PerftTask(child, this.depth - 1);
+                task.fork();
+                tasks.add(task);
+            }
+            long nodes = 0;
+            for (int i = tasks.size() - 1; i >= 0; --i) {
+                nodes += tasks.get(i).join();
+            }
+            cache.store(this.board.getZobristKey(), this.depth, nodes);
+            return nodes;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.igorternyuk.engine.perft;
+
+import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.board.BoardUtils;
+import com.igorternyuk.engine.board.FenParser;
+import com.igorternyuk.engine.board.SearchBoard;
+import com.igorternyuk.engine.moves.Move;
+import com.igorternyuk.engine.moves.MoveTransition;
+import com.igorternyuk.engine.moves.PawnPromotion;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts the leaf nodes of the legal move tree. Any difference from the reference counts of {@link PerftPosition}
+ * is a move generation bug, and the time taken is the raw speed of the board representation.
+ * Usage: Perft [depth] ["fen"] - without a FEN the reference suite is checked up to the depth, with one the FEN
+ * position is divided.
+ */
+public final class Perft {
+    private static final int DEFAULT_MAX_DEPTH = 4;
+    private static final int NUMBER_OF_RANDOM_CHESS960_POSITIONS = 3;
+
+    private Perft() {
+    }
+
+    //Board generates pseudo-legal moves, only those that do not leave the king in check are counted
+    public static long perft(final Board board, final int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        long nodes = 0;
+        for (final Move move : board.getCurrentPlayer().getLegalMoves()) {
+            final MoveTransition transition = board.getCurrentPlayer().makeMove(move);
+            if (transition.getMoveStatus().isDone()) {
+                nodes += depth == 1 ? 1 : perft(transition.getTransitedBoard(), depth - 1);
+            }
+        }
+        return nodes;
+    }
+
+    public static long perft(final SearchBoard board, final int depth) {
+        return perft(board, depth, new int[Math.max(1, depth) * SearchBoard.MAX_MOVES], 0);
+    }
+
+    //Every ply generates into the buffer behind the moves of its parent, so the whole count allocates nothing
+    static long perft(final SearchBoard board, final int depth, final int[] moves, final int start) {
+        if (depth == 0) {
+            return 1;
+        }
+        final int end = board.generateLegalMoves(moves, start);
+        if (depth == 1) {
+            return end - start;
+        }
+        long nodes = 0;
+        for (int i = start; i < end; ++i) {
+            board.makeMove(moves[i]);
+            nodes += perft(board, depth - 1, moves, end);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    //Leaf counts per root move in from-to notation, the usual way to find which move a perft bug hides behind
+    public static Map<String, Long> divide(final Board board, final int depth) {
+        final Map<String, Long> nodesPerMove = new LinkedHashMap<>();
+        for (final Move move : board.getCurrentPlayer().getLegalMoves()) {
+            final MoveTransition transition = board.getCurrentPlayer().makeMove(move);
+            if (transition.getMoveStatus().isDone()) {
+                nodesPerMove.put(toCoordinateNotation(move), perft(transition.getTransitedBoard(), depth - 1));
+            }
+        }
+        return nodesPerMove;
+    }
+
+    public static String toCoordinateNotation(final Move move) {
+        final String notation = BoardUtils.getAlgebraicNotationFromLocation(move.getMovedPiece().getLocation()) +
+                BoardUtils.getAlgebraicNotationFromLocation(move.getDestination());
+        return move.isPawnPromotionMove()
+                ? notation + ((PawnPromotion) move).getPromotedPiece().getPieceType().getName().toLowerCase()
+                : notation;
+    }
+
+    public static void main(String[] args) {
+        final int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_MAX_DEPTH;
+        if (args.length > 1) {
+            runDivide(args[1], maxDepth);
+            return;
+        }
+        boolean isEverythingCorrect = true;
+        for (final PerftPosition position : PerftPosition.values()) {
+            final Board board = position.createBoard();
+            for (int depth = 1; depth <= Math.min(maxDepth, position.getMaxDepth()); ++depth) {
+                final long startTime = System.nanoTime();
+                final long boardNodes = perft(board, depth);
+                final long boardTime = System.nanoTime() - startTime;
+                final long searchBoardNodes = perft(new SearchBoard(board), depth);
+                final long searchBoardTime = System.nanoTime() - startTime - boardTime;
+                final long expectedNodes = position.getExpectedNodes(depth);
+                final boolean isCorrect = boardNodes == expectedNodes && searchBoardNodes == expectedNodes;
+                isEverythingCorrect &= isCorrect;
+                System.out.println(String.format("%-18s depth %d nodes %10d expected %10d %s | Board %s | " +
+                                "SearchBoard %s", position, depth, boardNodes, expectedNodes,
+                        isCorrect ? "OK" : "FAILED (SearchBoard " + searchBoardNodes + ")",
+                        formatSpeed(boardNodes, boardTime), formatSpeed(searchBoardNodes, searchBoardTime)));
+            }
+        }
+        //Random Chess960 starts have no published counts, both board representations must agree on them
+        for (int i = 0; i < NUMBER_OF_RANDOM_CHESS960_POSITIONS; ++i) {
+            final Board board = Board.createBoardForChess960();
+            final int depth = Math.min(maxDepth, DEFAULT_MAX_DEPTH);
+            final long boardNodes = perft(board, depth);
+            final long searchBoardNodes = perft(new SearchBoard(board), depth);
+            isEverythingCorrect &= boardNodes == searchBoardNodes;
+            System.out.println(String.format("Random Chess960   depth %d Board %d SearchBoard %d %s", depth,
+                    boardNodes, searchBoardNodes, boardNodes == searchBoardNodes ? "OK" : "FAILED"));
+        }
+        System.out.println(isEverythingCorrect ? "All perft counts are correct" : "PERFT FAILED");
+        if (!isEverythingCorrect) {
+            System.exit(1);
+        }
+    }
+
+    private static void runDivide(final String fen, final int depth) {
+        final Board board = FenParser.createBoard(fen);
+        final long startTime = System.nanoTime();
+        long totalNodes = 0;
+        for (final Map.Entry<String, Long> entry : divide(board, depth).entrySet()) {
+            System.out.println(entry.getKey() + ": " + entry.getValue());
+            totalNodes += entry.getValue();
+        }
+        System.out.println(String.format("Nodes: %d %s", totalNodes,
+                formatSpeed(totalNodes, System.nanoTime() - startTime)));
+    }
+
+    private static String formatSpeed(final long nodes, final long nanoseconds) {
+        final long milliseconds = Math.max(1, nanoseconds / 1000000);
+        return String.format("%d ms %d nps", milliseconds, nodes * 1000 / milliseconds);
+    }
+}
@@ -0,0 +1,67 @@
+package com.igorternyuk.engine.perft;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free (Zobrist key, depth) to node count table shared by the perft threads. Like the transposition table an
+ * entry is the pair {@code key ^ data, data}, so a torn write by two threads fails the check and reads as a miss.
+ * Data layout: bits 0-7 depth, 8-63 node count. Entries are always replaced.
+ */
+public final class PerftCache {
+    public static final long NO_ENTRY = -1L;
+    private static final int LONGS_PER_ENTRY = 2;
+    private static final int DEPTH_BITS = 8;
+    private static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+    private static final long MAX_ENTRIES = 1L << 28;
+
+    private final long[] table;
+    private final int entryMask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public PerftCache(final int sizeInMegabytes) {
+        if (sizeInMegabytes <= 0) {
+            throw new RuntimeException("Perft cache size must be positive: " + sizeInMegabytes + " MB");
+        }
+        final long requestedEntries = (long) sizeInMegabytes * 1024 * 1024 / (LONGS_PER_ENTRY * Long.BYTES);
+        final int numberOfEntries = (int) Long.highestOneBit(Math.max(1, Math.min(requestedEntries, MAX_ENTRIES)));
+        this.table = new long[numberOfEntries * LONGS_PER_ENTRY];
+        this.entryMask = numberOfEntries - 1;
+    }
+
+    public long probe(final long key, final int depth) {
+        final int index = getIndex(key);
+        final long data = this.table[index + 1];
+        if ((this.table[index] ^ data) == key && (data & DEPTH_MASK) == depth) {
+            this.hits.increment();
+            return data >>> DEPTH_BITS;
+        }
+        this.misses.increment();
+        return NO_ENTRY;
+    }
+
+    public void store(final long key, final int depth, final long nodes) {
+        final int index = getIndex(key);
+        final long data = nodes << DEPTH_BITS | depth;
+        this.table[index] = key ^ data;
+        this.table[index + 1] = data;
+    }
+
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    private int getIndex(final long key) {
+        return ((int) key & this.entryMask) * LONGS_PER_ENTRY;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Perft cache entries: %d hits: %d misses: %d", this.table.length / LONGS_PER_ENTRY,
+                getHits(), getMisses());
+    }
+}
@@ -8,7 +8,6 @@ import com.igorternyuk.engine.board.BoardUtils;
 import com.igorternyuk.engine.board.Location;
 import com.igorternyuk.engine.moves.Move;
 
-import java.awt.*;
 import java.util.Collection;
 
 /**
@@ -85,17 +84,9 @@ public class Bishop extends Piece {
         return this.value;
     }
 
-    @Override
-    public void setPossibleOffsets() {
-        this.moveVectors.add(new Point(-1, -1));
-        this.moveVectors.add(new Point(-1, 1));
-        this.moveVectors.add(new Point(1, -1));
-        this.moveVectors.add(new Point(1, 1));
-    }
-
     @Override
     public Collection<Move> getLegalMoves(final Board board) {
-        return getSlidingPieceLegalMoves(board);
+        return getAttackTableMoves(board);
     }
 
     @Override
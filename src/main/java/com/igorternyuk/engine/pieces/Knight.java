@@ -9,7 +9,6 @@ import com.igorternyuk.engine.board.BoardUtils;
 import com.igorternyuk.engine.board.Location;
 import com.igorternyuk.engine.moves.Move;
 
-import java.awt.*;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
@@ -88,22 +87,9 @@ public class Knight extends Piece {
         return this.value;
     }
 
-    @Override
-    public void setPossibleOffsets() {
-
-        this.moveVectors.add(new Point(-2, -1));
-        this.moveVectors.add(new Point(-2, 1));
-        this.moveVectors.add(new Point(-1, -2));
-        this.moveVectors.add(new Point(-1, 2));
-        this.moveVectors.add(new Point(1, -2));
-        this.moveVectors.add(new Point(1, 2));
-        this.moveVectors.add(new Point(2, -1));
-        this.moveVectors.add(new Point(2, 1));
-    }
-
     @Override
     public Collection<Move> getLegalMoves(final Board board) {
-        return this.getJumpingPieceLegalMoves(board);
+        return getAttackTableMoves(board);
     }
 
     @Override
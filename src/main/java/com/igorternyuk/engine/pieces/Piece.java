@@ -2,6 +2,8 @@ package com.igorternyuk.engine.pieces;
 
 import com.google.common.collect.ImmutableList;
 import com.igorternyuk.engine.Alliance;
+import com.igorternyuk.engine.board.Attacks;
+import com.igorternyuk.engine.board.BitBoard;
 import com.igorternyuk.engine.board.Board;
 import com.igorternyuk.engine.board.BoardUtils;
 import com.igorternyuk.engine.board.Location;
@@ -48,7 +50,9 @@ public abstract class Piece {
         this(pieceType, BoardUtils.getLocation(x, y), alliance);
     }
 
-    public abstract void setPossibleOffsets();
+    //Only pawns walk their offsets, the other pieces take their moves from the attack tables
+    public void setPossibleOffsets() {
+    }
 
     public abstract Collection<Move> getLegalMoves(final Board board);
 
@@ -74,68 +78,22 @@ public abstract class Piece {
         return this.isFirstMove;
     }
 
-    protected final Collection<Move> getSlidingPieceLegalMoves(final Board board) {
-        List<Move> legalMoves = new ArrayList<>();
-        this.moveVectors.forEach(offset -> {
-            int destX = this.location.getX() + offset.x;
-            int destY = this.location.getY() + offset.y;
-            if (BoardUtils.isValidLocation(destX, destY)) {
-                Location candidateDestination = BoardUtils.getLocation(destX, destY);
-                while (true) {
-                    Move move = getNextMove(board, candidateDestination);
-                    if (move.equals(Move.MoveFactory.NULL_MOVE)) {
-                        break;
-                    } else {
-                        legalMoves.add(move);
-                        if (move.isCapturingMove()) {
-                            break;
-                        } else {
-                            destX += offset.x;
-                            destY += offset.y;
-                            if (BoardUtils.isValidLocation(destX, destY)) {
-                                candidateDestination = BoardUtils.getLocation(destX, destY);
-                            } else {
-                                break;
-                            }
-                        }
-
-                    }
-                }
-            }
-        });
-        return ImmutableList.copyOf(legalMoves);
-    }
-
-    protected final Collection<Move> getJumpingPieceLegalMoves(final Board board) {
-        List<Move> legalMoves = new ArrayList<>();
-        this.moveVectors.forEach(offset -> {
-            int destX = this.location.getX() + offset.x;
-            int destY = this.location.getY() + offset.y;
-            if (BoardUtils.isValidLocation(destX, destY)) {
-                final Location candidateDestination = BoardUtils.getLocation(destX, destY);
-                Move move = getNextMove(board, candidateDestination);
-                if (!move.equals(Move.MoveFactory.NULL_MOVE)) {
-                    legalMoves.add(move);
-                }
-            }
-        });
-        return ImmutableList.copyOf(legalMoves);
-    }
-
-    private Move getNextMove(final Board board, final Location candidateDestination) {
-        if (BoardUtils.isValidLocation(candidateDestination)) {
-            final Tile destinationTile = board.getTile(candidateDestination);
-            if (destinationTile.isOccupied()) {
-                final Piece capturedPiece = destinationTile.getPiece();
-                if (!this.getAlliance().equals(capturedPiece.getAlliance())) {
-                    return new PieceCapturingMove(board, this, candidateDestination,
-                            capturedPiece);
-                }
-            } else {
-                return new RegularMove(board, this, candidateDestination);
-            }
+    //Moves of every piece but the pawn, looked up in the attack tables instead of walking the move vectors
+    protected final Collection<Move> getAttackTableMoves(final Board board) {
+        final BitBoard bitBoard = board.getBitBoard();
+        long targets = Attacks.pieceAttacks(this.pieceType, BitBoard.getSquare(this.location),
+                bitBoard.getOccupancy()) & ~bitBoard.getPieces(this.alliance);
+        final List<Move> legalMoves = new ArrayList<>(Long.bitCount(targets));
+        while (targets != BitBoard.EMPTY) {
+            final int square = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            final Tile destinationTile = board.getTile(square);
+            legalMoves.add(destinationTile.isOccupied()
+                    ? new PieceCapturingMove(board, this, destinationTile.getTileLocation(),
+                    destinationTile.getPiece())
+                    : new RegularMove(board, this, destinationTile.getTileLocation()));
         }
-        return Move.MoveFactory.NULL_MOVE;
+        return ImmutableList.copyOf(legalMoves);
     }
 
     @Override
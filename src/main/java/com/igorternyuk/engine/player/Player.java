@@ -3,6 +3,7 @@ package com.igorternyuk.engine.player;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.igorternyuk.engine.Alliance;
+import com.igorternyuk.engine.board.BitBoard;
 import com.igorternyuk.engine.board.Board;
 import com.igorternyuk.engine.board.BoardUtils;
 import com.igorternyuk.engine.board.Location;
@@ -29,14 +30,15 @@ public abstract class Player {
     private final boolean isInCheck;
     private final boolean kingSideCastlingCapable;
     private final boolean queenSideCastlingCapable;
+    private Boolean hasEscapeMoves;
 
     protected Player(final Board board, final Collection<Move> legalMoves, final Collection<Move> opponentMoves) {
         this.board = board;
         this.king = establishKing();
         this.opponentLegalMoves = opponentMoves;
-        this.isInCheck = !Player.calculateAttacksOnTile(this.king.getLocation(), opponentMoves).isEmpty();
+        this.isInCheck = board.isSquareAttacked(this.king.getLocation(), this.getOpponentAlliance());
         if (!this.isCastled()) {
-            final Collection<Move> castles = this.calculateCastles(legalMoves, opponentMoves);
+            final Collection<Move> castles = this.calculateCastles();
             this.kingSideCastlingCapable = castles.stream().anyMatch(move -> move.isKingSideCastling());
             this.queenSideCastlingCapable = castles.stream().anyMatch(move -> move.isQueenSideCastling());
             /*System.out.println((this.getAlliance().isWhite() ? "White king" : "Black king") +
@@ -115,10 +117,8 @@ public abstract class Player {
         final Board transitedBoard = move.execute(); //This method transfers the turn to the opponent
         final Player playerWhoseMoveIsGoingToBeChecked = transitedBoard.getCurrentPlayer().getOpponent();
         final Location currentPlayerLocation = playerWhoseMoveIsGoingToBeChecked.getPlayerKing().getLocation();
-        final Collection<Move> opponentLegalMoves = playerWhoseMoveIsGoingToBeChecked.getOpponentLegalMoves();
-        final Collection<Move> kingAttacks = Player.calculateAttacksOnTile(currentPlayerLocation, opponentLegalMoves);
 
-        if(!kingAttacks.isEmpty()){
+        if(transitedBoard.isSquareAttacked(currentPlayerLocation, transitedBoard.getCurrentPlayer().getAlliance())){
             return new MoveTransition(transitedBoard, move, MoveStatus.KING_IS_UNDER_CHECK);
         }
         return new MoveTransition(transitedBoard, move, MoveStatus.DONE);
@@ -130,8 +130,7 @@ public abstract class Player {
     public abstract Collection<Piece> getOpponentActivePieces();
     public abstract Alliance getOpponentAlliance();
 
-    private Collection<Move> calculateCastles(final Collection<Move> playerLegalMoves,
-                                              final Collection<Move> opponentLegalMoves) {
+    private Collection<Move> calculateCastles() {
         List<Move> castles = new ArrayList<>();
         if(this.king.isFirstMove() && !this.isUnderCheck()){
             final int lastRank = this.getAlliance().isWhite() ?
@@ -148,10 +147,8 @@ public abstract class Player {
                     final Tile kingsRookStartTile = this.board.getTile('h', lastRank);
                     if (kingsRookStartTile.isOccupied() && kingsRookStartTile.getPiece().getPieceType().isRook() &&
                             kingsRookStartTile.getPiece().isFirstMove()) {
-                        if (Player.calculateAttacksOnTile(kingsRookDestinationTile.getTileLocation(),
-                                opponentLegalMoves).isEmpty() &&
-                                Player.calculateAttacksOnTile(kingsSideKingsDestinationTile.getTileLocation(),
-                                        opponentLegalMoves).isEmpty()) {
+                        if (!isAttackedWhileCastling(kingsRookDestinationTile, kingsRookStartTile) &&
+                                !isAttackedWhileCastling(kingsSideKingsDestinationTile, kingsRookStartTile)) {
                             castles.add(new KingsSideCastling(this.board, this.king,
                                     kingsSideKingsDestinationTile.getTileLocation(),
                                     (Rook) kingsRookStartTile.getPiece(),
@@ -193,8 +190,7 @@ public abstract class Player {
                                 final boolean isCurrentTileOccupiedNotByCastlingRook = currentTile.isOccupied() &&
                                         !currentTile.getPiece().equals(castlingRook);
                                 final boolean isCurrentTileUnderCheck =
-                                        !Player.calculateAttacksOnTile(currentTile.getTileLocation(),
-                                        opponentLegalMoves).isEmpty();
+                                        isAttackedWhileCastling(currentTile, kingsRookStartTile);
                                 //System.out.println("isCurrentTileOccupiedNotByCastlingRook = " +
                                         //isCurrentTileOccupiedNotByCastlingRook);
                                 //System.out.println("isCurrentTileUnderCheck = " + isCurrentTileUnderCheck);
@@ -228,10 +224,8 @@ public abstract class Player {
                     if(queensSideKnightsTile.isEmpty() && queensRookStartTile.isOccupied() &&
                             queensRookStartTile.getPiece().getPieceType().isRook() &&
                             queensRookStartTile.getPiece().isFirstMove()) {
-                        if (Player.calculateAttacksOnTile(queensSideKingsDestinationTile.getTileLocation(),
-                                this.getOpponentLegalMoves()).isEmpty() &&
-                                Player.calculateAttacksOnTile(queensRookDestinationTile.getTileLocation(),
-                                        this.getOpponentLegalMoves()).isEmpty()) {
+                        if (!isAttackedWhileCastling(queensSideKingsDestinationTile, queensRookStartTile) &&
+                                !isAttackedWhileCastling(queensRookDestinationTile, queensRookStartTile)) {
                             castles.add(new QueensSideCastling(this.board, this.king,
                                     queensSideKingsDestinationTile.getTileLocation(),
                                     (Rook) queensRookStartTile.getPiece(),
@@ -276,8 +270,7 @@ public abstract class Player {
                                         !currentTile.getPiece().equals(castlingRook);
                                 //System.out.println("isCurrentTileOccupiedByCastlingRook = " + isCurrentTileOccupiedNotByCastlingRook);
                                 final boolean isCurrentTileUnderCheck =
-                                        !Player.calculateAttacksOnTile(currentTile.getTileLocation(),
-                                        opponentLegalMoves).isEmpty();
+                                        isAttackedWhileCastling(currentTile, queensRookStartTile);
                                 //System.out.println("isCurrentTileUnderCheck = " + isCurrentTileUnderCheck);
                                 if(isCurrentTileOccupiedNotByCastlingRook || isCurrentTileUnderCheck){
                                     isAllBetweenTilesOK = false;
@@ -310,11 +303,14 @@ public abstract class Player {
         throw new RuntimeException("\nPlayer should have the king!\n");
     }
 
-    public static Collection<Move> calculateAttacksOnTile(final Location location,
-                                                          final Collection<Move> opponentMoves) {
-        final List<Move> attackMoves = new ArrayList<>();
-        opponentMoves.stream().filter(move -> move.getDestination().equals(location)).forEach(attackMoves::add);
-        return attackMoves;
+    //The king and the castling rook leave their squares together, so neither of them shields a square on the way
+    private boolean isAttackedWhileCastling(final Tile tile, final Tile castlingRookStartTile) {
+        final BitBoard bitBoard = this.board.getBitBoard();
+        final long occupancy = bitBoard.getOccupancy() &
+                ~BitBoard.getSquareMask(BitBoard.getSquare(this.king.getLocation())) &
+                ~BitBoard.getSquareMask(BitBoard.getSquare(castlingRookStartTile.getTileLocation()));
+        return bitBoard.isSquareAttacked(BitBoard.getSquare(tile.getTileLocation()), this.getOpponentAlliance(),
+                occupancy);
     }
 
     public List<Move> calcEscapeMoves() {
@@ -324,7 +320,11 @@ public abstract class Player {
         }).collect(Collectors.toList());
     }
 
+    //Stops at the first move that does not leave the king in check, checkmate and stalemate ask for it both
     private boolean hasEscapeMoves(){
-        return !calcEscapeMoves().isEmpty();
+        if (this.hasEscapeMoves == null) {
+            this.hasEscapeMoves = this.legalMoves.stream().anyMatch(move -> makeMove(move).getMoveStatus().isDone());
+        }
+        return this.hasEscapeMoves;
     }
 }
@@ -1,342 +1,1003 @@
 package com.igorternyuk.engine.player.ai;
 
-import com.igorternyuk.engine.Alliance;
+import com.igorternyuk.engine.board.BitBoard;
 import com.igorternyuk.engine.board.Board;
 import com.igorternyuk.engine.board.BoardUtils;
+import com.igorternyuk.engine.board.SearchBoard;
 import com.igorternyuk.engine.moves.Move;
 import com.igorternyuk.engine.moves.MoveTransition;
-import com.igorternyuk.engine.player.Player;
+import com.igorternyuk.engine.moves.SearchMove;
+import com.igorternyuk.engine.pieces.PieceType;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Created by igor on 09.12.18.
  */
 public class AlphaBeta implements MoveStrategy {
-    private final BoardEvaluator boardEvaluator;
-    private final int searchDepth;
+    private final PositionEvaluator positionEvaluator;
+    private final TranspositionTable transpositionTable;
+    private final TimeControl timeControl;
+    //Helper threads of LazySmp have positive indices and fork/join workers a negative one, only the main thread
+    //reports its progress
+    private final int threadIndex;
+    //Null unless the search is split over a fork/join pool, and for workers that search their subtree serially
+    private final ParallelSearch parallelSearch;
+    private final SearchOptions searchOptions;
+    //The split point a fork/join worker is searching under, null for the thread that started the search
+    private SplitPoint splitPoint;
+    //The board of a fork/join worker, a copy of the position of the task it runs
+    private SearchBoard workerBoard;
+    //The search of the last task of a fork/join worker
+    private long workerSearchId = -1;
     private long boardsEvaluated;
     private long cutsOffProduced;
-    private int quiescenceCount;
-    //private Map<String, Integer> tt = new HashMap<>();
-    private static final int MAX_QUIESCENCE = 5000;
-    private final Random random = new Random();
-    //private Map<Board, Integer> tt = new HashMap<>();
+    private long quiescenceNodes;
+    private long aspirationResearches;
+    private static final int NODES_BETWEEN_TIME_CHECKS = 0x3FF;
+    static final int MAIN_THREAD = 0;
+    static final int FORK_JOIN_WORKER = -1;
+    //Below this depth a subtree is too small to pay for a board copy and a task
+    private static final int MIN_SPLIT_DEPTH = 3;
+    //Quiescence nodes this deep stand pat even in check, long chains of checks and captures are cut off here
+    private static final int MAX_SEARCH_PLY = 128;
+    //Captures that cannot bring the stand pat score within this of alpha are not searched in quiescence
+    private static final long DELTA_MARGIN = 2 * StandardPositionEvaluator.getMaterialScore(PieceType.PAWN);
+    private static final int NUMBER_OF_KILLERS = 2;
+    //History scores are halved once one of them passes this, so that old cutoffs fade out
+    private static final int MAX_HISTORY_SCORE = 1 << 20;
+    //Iterations from this depth on search the root in an aspiration window around the score of the previous one
+    private static final int MIN_ASPIRATION_DEPTH = 4;
+    //Null move pruning: the side to move passes and the opponent is searched this much shallower, one ply more in
+    //deep nodes. From the verification depth on a cutoff is only trusted once a search of the node itself without
+    //the null move confirms it
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+    private static final int NULL_MOVE_REDUCTION = 2;
+    private static final int DEEP_NULL_MOVE_DEPTH = 7;
+    private static final int NULL_MOVE_VERIFICATION_DEPTH = 5;
+    private static final int NO_PLY = -1;
+    private long nodesSearched;
+    private long searchStartTime;
+    private boolean isSearchStopped;
+    private CancellationToken cancellationToken;
+    private SearchResult searchResult = SearchResult.NONE;
+    //Stacks indexed by ply that belong to this thread alone: a move picker and a row of the principal variation
+    //table. Both are created the first time the search reaches the ply and reused at every node after that, so
+    //the search allocates nothing per node once it has been as deep before
+    private final MovePicker[] movePickers = new MovePicker[SearchBoard.MAX_GAME_LENGTH];
+    private final int[][] principalVariations = new int[SearchBoard.MAX_GAME_LENGTH][];
+    private final int[] principalVariationLengths = new int[SearchBoard.MAX_GAME_LENGTH];
+    //The moves of a split node handed to the pool, they only have to last until every task has been created
+    private final int[][] youngBrothers = new int[SearchBoard.MAX_GAME_LENGTH][];
+    //Quiet moves that caused a beta cutoff, learned by this thread: the last two at each ply, a score per side and
+    //from and destination square growing with the depth of the cutoffs, and the refutation of each previous move
+    //by its from and destination square
+    private final int[][] killers = new int[SearchBoard.MAX_GAME_LENGTH][NUMBER_OF_KILLERS];
+    private final int[][][] history =
+            new int[BitBoard.NUMBER_OF_ALLIANCES][BoardUtils.TOTAL_NUMBER_OF_TILES][BoardUtils.TOTAL_NUMBER_OF_TILES];
+    private final int[][] counterMoves = new int[BoardUtils.TOTAL_NUMBER_OF_TILES][BoardUtils.TOTAL_NUMBER_OF_TILES];
+    //The node being verified after a null move cutoff, it must not prune with a null move again
+    private int nullMoveVerificationPly = NO_PLY;
+
     public AlphaBeta(int depth) {
-        this.boardEvaluator = new StandardBoardEvaluator();
-        this.searchDepth = depth;
+        this(TimeControl.fixedDepth(depth));
+    }
+
+    public AlphaBeta(int depth, final TranspositionTable transpositionTable) {
+        this(TimeControl.fixedDepth(depth), transpositionTable);
+    }
+
+    public AlphaBeta(final TimeControl timeControl) {
+        this(timeControl, new TranspositionTable());
+    }
+
+    public AlphaBeta(final TimeControl timeControl, final TranspositionTable transpositionTable) {
+        this(timeControl, transpositionTable, SearchOptions.DEFAULT);
+    }
+
+    public AlphaBeta(final TimeControl timeControl, final TranspositionTable transpositionTable,
+                     final SearchOptions searchOptions) {
+        this(timeControl, transpositionTable, MAIN_THREAD, null, SplitMode.ROOT_MOVES, searchOptions);
+    }
+
+    public AlphaBeta(final TimeControl timeControl, final ForkJoinPool forkJoinPool) {
+        this(timeControl, forkJoinPool, SplitMode.ROOT_MOVES);
+    }
+
+    public AlphaBeta(final TimeControl timeControl, final ForkJoinPool forkJoinPool, final SplitMode splitMode) {
+        this(timeControl, new TranspositionTable(), MAIN_THREAD, forkJoinPool, splitMode);
+    }
+
+    AlphaBeta(final TimeControl timeControl, final TranspositionTable transpositionTable, final int threadIndex,
+              final ForkJoinPool forkJoinPool, final SplitMode splitMode) {
+        this(timeControl, transpositionTable, threadIndex, forkJoinPool, splitMode, SearchOptions.DEFAULT);
+    }
+
+    private AlphaBeta(final TimeControl timeControl, final TranspositionTable transpositionTable,
+                      final int threadIndex, final ForkJoinPool forkJoinPool, final SplitMode splitMode,
+                      final SearchOptions searchOptions) {
+        this(timeControl, transpositionTable, threadIndex, searchOptions, forkJoinPool == null ? null
+                : new ParallelSearch(forkJoinPool, splitMode, timeControl, transpositionTable, searchOptions));
+    }
+
+    AlphaBeta(final TimeControl timeControl, final TranspositionTable transpositionTable, final int threadIndex,
+              final SearchOptions searchOptions, final ParallelSearch parallelSearch) {
+        this.threadIndex = threadIndex;
+        this.searchOptions = searchOptions;
+        this.parallelSearch = parallelSearch;
+        this.positionEvaluator = new StandardPositionEvaluator();
+        this.transpositionTable = transpositionTable;
+        this.timeControl = timeControl;
         this.boardsEvaluated = 0;
         this.cutsOffProduced = 0;
-        this.quiescenceCount = 0;
-    }
-
-    private double alphaBeta(final Board board, int depth, double alpha, double beta, Alliance alliance) {
-        System.out.println(" alpha = " + alpha + " beta = " + beta + " depth = " + depth);
-        if (depth == 0 || board.isEndGameScenario()) {
-            ++this.boardsEvaluated;
-            return this.boardEvaluator.evaluate(board, depth);
-        }
-
-        Collection<Move> sortedMoves = MoveSorter.STANDARD.sort(board.getCurrentPlayer().getLegalMoves());
-        double current;
-
-        if (alliance.isWhite()) {
-            current = alpha;
-            for (final Move move : sortedMoves) {
-                final MoveTransition moveTransition = board.getCurrentPlayer().makeMove(move);
-                if (moveTransition.getMoveStatus().isDone()) {
-                    current = Math.max(current, alphaBeta(moveTransition.getTransitedBoard(),
-                            calculateQuiescenceDepth(moveTransition, depth), current, beta, Alliance.BLACK));
-                    if (current > beta) {
-                        ++this.cutsOffProduced;
-                        System.out.println("//////////////////////////////////////////////////////////");
-                        return beta;
-                        /*calculateQuiescenceDepth(moveTransition, depth), current*/
-                    }
-                }
-            }
-        } else {
-            current = beta;
-            for (final Move move : sortedMoves) {
-                final MoveTransition moveTransition = board.getCurrentPlayer().makeMove(move);
-                if (moveTransition.getMoveStatus().isDone()) {
-                    current = Math.min(current, alphaBeta(moveTransition.getTransitedBoard(),
-                            calculateQuiescenceDepth(moveTransition, depth), alpha, current, Alliance.WHITE));
-                    if (current < alpha) {
-                        ++this.cutsOffProduced;
-                        System.out.println("//////////////////////////////////////////////////////////");
-                        return alpha;
-                    }
-                }
-            }
-        }
-        return current;
+        this.quiescenceNodes = 0;
     }
 
-    private static class Evaluation {
+    static final class Evaluation {
         private final long score;
-        private final String bestLine;
-        private final String evalBoard;
+        //Starts with the root move the score belongs to
+        private final int[] principalVariation;
 
-        public Evaluation(long score, String bestLine, String evalBoard) {
+        Evaluation(long score, int[] principalVariation) {
             this.score = score;
-            this.bestLine = bestLine;
-            this.evalBoard = evalBoard;
+            this.principalVariation = principalVariation;
         }
 
         public long GetScore() {
             return this.score;
         }
 
-        public String GetBestLine() {
-            return this.bestLine;
+        public int[] GetPrincipalVariation() {
+            return this.principalVariation;
         }
 
-        public String GetEvalBoard() {
-            return this.evalBoard;
+        public String GetBestLine() {
+            final StringBuilder bestLine = new StringBuilder();
+            for (final int move : this.principalVariation) {
+                bestLine.append(bestLine.length() == 0 ? "" : " ").append(SearchMove.toString(move));
+            }
+            return bestLine.toString();
         }
     }
 
-    private static class ScoredMove {
-        private final Move move;
-        private final long score;
+    static final class ScoredMove {
+        private final int move;
+        private final Evaluation evaluation;
 
-        private ScoredMove(Move move, long score) {
+        ScoredMove(final int move, final Evaluation evaluation) {
             this.move = move;
-            this.score = score;
+            this.evaluation = evaluation;
         }
 
-        Move getMove() {
+        int getMove() {
             return this.move;
         }
 
-        long getScore() {
-            return this.score;
+        Evaluation getEvaluation() {
+            return this.evaluation;
         }
+    }
 
-        @Override
-        public boolean equals(Object other) {
-            if (this == other) return true;
-            if (other == null || !(other instanceof ScoredMove)) return false;
-            ScoredMove otherMove = (ScoredMove) other;
-            if (this.score != otherMove.getScore())
-                return false;
-            return Objects.equals(this.move, otherMove.getMove());
+    @Override
+    public Move execute(final Board board, final CancellationToken cancellationToken) {
+        if (isMainThread()) {
+            this.transpositionTable.newSearch();
         }
+        return search(board, cancellationToken);
+    }
 
-        @Override
-        public int hashCode() {
-            int result = Double.hashCode(this.score);
-            result = 31 * result + this.move.hashCode();
-            return result;
+    //The search without starting a new generation of the transposition table. LazySmp starts it itself, before
+    //any of its threads stores an entry
+    Move search(final Board board, final CancellationToken cancellationToken) {
+        final long startTime = System.currentTimeMillis();
+        this.cancellationToken = cancellationToken;
+        this.searchStartTime = this.timeControl.getTicker().read();
+        this.isSearchStopped = false;
+        this.nodesSearched = 0;
+        this.aspirationResearches = 0;
+        clearMoveOrderingTables();
+        if (this.parallelSearch != null) {
+            this.parallelSearch.newSearch();
         }
+        final SearchBoard searchBoard = new SearchBoard(board);
+        report(board.getCurrentPlayer() + " THINKING with " + this.timeControl);
+
+        ScoredMove best = null;
+        int completedDepth = 0;
+        //Every second helper runs one ply ahead of the main thread. It starts one ply deeper rather than adding a ply
+        //to each iteration, so at the maximum depth it stops instead of searching the last iteration twice
+        final int firstDepth = Math.min(1 + this.threadIndex % 2, this.timeControl.getMaxDepth());
+        for (int iterationDepth = firstDepth; iterationDepth <= this.timeControl.getMaxDepth(); ++iterationDepth) {
+            final long iterationStartTime = System.nanoTime();
+            final ScoredMove iterationBest = searchIteration(board, searchBoard, iterationDepth, best);
+            if (this.isSearchStopped || iterationBest == null) {
+                report(String.format("Iteration %d abandoned after %s", iterationDepth,
+                        calculateTimeTaken(iterationStartTime, System.nanoTime())));
+                break;
+            }
+            best = iterationBest;
+            completedDepth = iterationDepth;
+            report(String.format("Depth %d best move: %s score: %d best line: %s time: %s", iterationDepth,
+                    SearchMove.toString(best.getMove()), best.getEvaluation().GetScore(),
+                    best.getEvaluation().GetBestLine(), calculateTimeTaken(iterationStartTime, System.nanoTime())));
+            if (getElapsedMillis() >= this.timeControl.getSoftLimitMillis() ||
+                    StandardPositionEvaluator.isMateScore(best.getEvaluation().GetScore())) {
+                break;
+            }
+        }
+
+        if (best == null) {
+            //Not even the first iteration finished, so any legal move is better than none
+            final int[] legalMoves = searchBoard.generateLegalMoves();
+            this.searchResult = legalMoves.length == 0
+                    ? SearchResult.NONE
+                    : createSearchResult(board, sortMoves(searchBoard, legalMoves, TranspositionTable.NO_MOVE).get(0),
+                    0, 0, new int[0]);
+        } else {
+            this.searchResult = createSearchResult(board, best.getMove(), best.getEvaluation().GetScore(),
+                    completedDepth, best.getEvaluation().GetPrincipalVariation());
+        }
+
+        report("Board evaluated = " + this.boardsEvaluated);
+        report("this.cutsOffProduced = " + this.cutsOffProduced);
+        report(this.transpositionTable.toString());
+        report(String.format("Best move = %s eval = %d", this.searchResult.getBestMove(),
+                this.searchResult.getScore()));
+        report("Principal variation: " + this.searchResult);
+        report("Move time = " + (System.currentTimeMillis() - startTime) / 1000 + " seconds");
+
+        return this.searchResult.getBestMove();
     }
 
-    @Override
-    public Move execute(final Board board) {
-        final long startTime = System.currentTimeMillis();
-        final Player currentPlayer = board.getCurrentPlayer();
-        Move bestMove = Move.MoveFactory.NULL_MOVE;
+    //The result of the last completed search, SearchResult.NONE before the first one
+    public SearchResult getSearchResult() {
+        return this.searchResult;
+    }
 
-        long alpha = Long.MIN_VALUE;
-        long beta = Long.MAX_VALUE;
+    //The line is replayed on the immutable board, it ends early if a move cannot be played there
+    private static SearchResult createSearchResult(final Board board, final int bestMove, final long score,
+                                                   final int depth, final int[] principalVariation) {
+        final List<Move> moves = new ArrayList<>(principalVariation.length);
+        Board currentBoard = board;
+        for (final int searchMove : principalVariation) {
+            final Move move = Move.MoveFactory.createMove(currentBoard, searchMove);
+            if (move == Move.MoveFactory.NULL_MOVE) {
+                break;
+            }
+            final MoveTransition transition = currentBoard.getCurrentPlayer().makeMove(move);
+            if (!transition.getMoveStatus().isDone()) {
+                break;
+            }
+            moves.add(move);
+            currentBoard = transition.getTransitedBoard();
+        }
+        return new SearchResult(Move.MoveFactory.createMove(board, bestMove), score, depth, moves);
+    }
+
+    //A score on the edge of the aspiration window is only a bound, so the iteration is repeated with that side of
+    //the window widened until the score falls inside it
+    private ScoredMove searchIteration(final Board board, final SearchBoard searchBoard, final int searchDepth,
+                                       final ScoredMove previousBest) {
+        if (previousBest == null || searchDepth < MIN_ASPIRATION_DEPTH) {
+            return searchRoot(board, searchBoard, searchDepth, Long.MIN_VALUE, Long.MAX_VALUE);
+        }
+        final AspirationWindow window = new AspirationWindow(previousBest.getEvaluation().GetScore(),
+                this.searchOptions.getAspirationWindow());
+        while (true) {
+            final ScoredMove best = searchRoot(board, searchBoard, searchDepth, window.getAlpha(), window.getBeta());
+            if (this.isSearchStopped || best == null) {
+                return null;
+            }
+            final long score = best.getEvaluation().GetScore();
+            final String failedWindow = window.toString();
+            if (!window.widen(score)) {
+                return best;
+            }
+            ++this.aspirationResearches;
+            report(String.format("Depth %d score %d outside of the window %s, searching again", searchDepth,
+                    score, failedWindow));
+        }
+    }
 
-        final Collection<Move> legalMoves = MoveSorter.SMART.sort((board.getCurrentPlayer().getLegalMoves()));
+    private ScoredMove searchRoot(final Board board, final SearchBoard searchBoard, final int searchDepth,
+                                  final long initialAlpha, final long initialBeta) {
+        final boolean isWhiteToMove = searchBoard.getSideToMove().isWhite();
+        long alpha = initialAlpha;
+        long beta = initialBeta;
+        final long rootEntry = this.transpositionTable.probe(searchBoard.getZobristKey());
+        final List<Integer> legalMoves = sortMoves(searchBoard, searchBoard.generateLegalMoves(),
+                TranspositionTable.getMove(rootEntry));
+        if (!isMainThread() && legalMoves.size() > 2) {
+            //Helpers take the moves behind the hash move in a different order to spread over the tree
+            Collections.rotate(legalMoves.subList(1, legalMoves.size()), -this.threadIndex);
+        }
         final int numMoves = legalMoves.size();
-        System.out.println(board.getCurrentPlayer() + " THINKING with depth = " + this.searchDepth);
-
-        List<ScoredMove> listOfBestMoves = new ArrayList<>();
-        long evalBest = 0;
-        if (currentPlayer.getAlliance().isBlack()) {
-            final Move mateMove = Move.MoveFactory.createMove(board, "d5", "h1");
-            int moveCounter = 0;
-            long minVal = Long.MAX_VALUE;
-            for (final Move move : legalMoves) {
-                final long candidateMoveStartTime = System.nanoTime();
-                ++moveCounter;
-                final MoveTransition moveTransition = board.getCurrentPlayer().makeMove(move);
-                this.quiescenceCount = 0;
-                if (moveTransition.getMoveStatus().isDone()) {
-                    String currLine = move.toString();
-                    Evaluation currEval = max(moveTransition.getTransitedBoard(), calculateQuiescenceDepth(moveTransition, this.searchDepth), alpha, beta, currLine);
-                    ScoredMove bestScoredMove = new ScoredMove(bestMove, currEval.score);
-                    listOfBestMoves.add(bestScoredMove);
-
-                    if (currEval.score < minVal) {
-                        bestMove = move;
-                        minVal = currEval.score;
-                        evalBest = currEval.score;
-                        if (board.isEndGameScenario())
-                            break;
-                    }
-                    StringBuilder builder = new StringBuilder();
-                    String strMove = move.toString();
-                    builder.append(String.format("Analyzed move %s (%d / %d):  with depth %d q: %d\n", move, moveCounter, numMoves, this.searchDepth, this.quiescenceCount));
-                    builder.append(String.format("best move: %s score: %d best line: %s", strMove, currEval.GetScore(), currEval.GetBestLine()));
-                    //builder.append(String.format("\nEvaluated board: %s\n", currEval.GetEvalBoard()));
-                    builder.append(String.format("\nTime taken: %s", calculateTimeTaken(candidateMoveStartTime, System.nanoTime())));
-                    final String strInfo = builder.toString();
-                    System.out.println(strInfo);
-                }
+
+        ScoredMove best = null;
+        int moveCounter = 0;
+        for (final int move : legalMoves) {
+            if (this.parallelSearch != null && best != null) {
+                best = this.parallelSearch.searchRemainingRootMoves(this, searchBoard,
+                        legalMoves.subList(moveCounter, numMoves), moveCounter, numMoves, searchDepth, alpha, beta,
+                        best);
+                break;
             }
-        } else if (currentPlayer.getAlliance().isWhite()) {
-            int moveCounter = 0;
-            long maxVal = Long.MIN_VALUE;
-            for (final Move move : legalMoves) {
-                final long candidateMoveStartTime = System.nanoTime();
-                ++moveCounter;
-                final MoveTransition moveTransition = board.getCurrentPlayer().makeMove(move);
-                this.quiescenceCount = 0;
-                if (moveTransition.getMoveStatus().isDone()) {
-                    String currLine = move.toString();
-                    Evaluation currEval = min(moveTransition.getTransitedBoard(), calculateQuiescenceDepth(moveTransition, this.searchDepth), alpha, beta, currLine);
-                    ScoredMove bestScoredMove = new ScoredMove(bestMove, currEval.score);
-                    listOfBestMoves.add(bestScoredMove);
-
-                    if (currEval.score > maxVal) {
-                        bestMove = move;
-                        maxVal = Math.max(currEval.score, maxVal);
-                        evalBest = currEval.score;
-                        if (board.isEndGameScenario())
-                            break;
-                    }
-                    StringBuilder builder = new StringBuilder();
-                    String strMove = move.toString();
-                    builder.append(String.format("Analyzed move %s (%d / %d):  with depth %d q: %d\n", move, moveCounter, numMoves, this.searchDepth, this.quiescenceCount));
-                    builder.append(String.format("best move: %s score: %d\nbest line: %s\n", strMove, currEval.GetScore(), currEval.GetBestLine()));
-                    // builder.append(String.format("Evaluated board: %s\n", currEval.GetEvalBoard()));
-                    builder.append(String.format("\nTime taken: %s", calculateTimeTaken(candidateMoveStartTime, System.nanoTime())));
-                    final String strInfo = builder.toString();
-                    System.out.println(strInfo);
+            final long candidateMoveStartTime = System.nanoTime();
+            ++moveCounter;
+            final Evaluation currEval = best == null
+                    ? searchRootMove(searchBoard, move, searchDepth, alpha, beta)
+                    : searchRootMoveWithNullWindow(searchBoard, move, searchDepth, alpha, beta);
+            if (this.isSearchStopped) {
+                return null;
+            }
+
+            if (best == null || (isWhiteToMove
+                    ? currEval.GetScore() > best.getEvaluation().GetScore()
+                    : currEval.GetScore() < best.getEvaluation().GetScore())) {
+                best = new ScoredMove(move, currEval);
+                if (isWhiteToMove) {
+                    alpha = Math.max(alpha, currEval.GetScore());
+                } else {
+                    beta = Math.min(beta, currEval.GetScore());
                 }
             }
+            reportRootMove(move, moveCounter, numMoves, searchDepth, currEval, candidateMoveStartTime);
+            if (alpha >= beta) {
+                //Failed high on the aspiration window, the iteration is searched again anyway
+                break;
+            }
+        }
+        if (this.isSearchStopped) {
+            return null;
+        }
+        if (best != null) {
+            storeEvaluation(searchBoard, searchDepth, best.getEvaluation().GetScore(), initialAlpha, initialBeta,
+                    best.getMove());
         }
+        return best;
+    }
 
-        System.out.println("Board evaluated = " + this.boardsEvaluated);
-        System.out.println("this.cutsOffProduced = " + this.cutsOffProduced);
+    //Principal variation search: the first move is expected to stay the best, so the others only have to be
+    //proven worse with a null window around the bound. One that is not gets searched again with the full window
+    private Evaluation searchRootMoveWithNullWindow(final SearchBoard searchBoard, final int move,
+                                                    final int searchDepth, final long alpha, final long beta) {
+        if (!this.searchOptions.isPrincipalVariationSearch()) {
+            return searchRootMove(searchBoard, move, searchDepth, alpha, beta);
+        }
+        final boolean isWhiteToMove = searchBoard.getSideToMove().isWhite();
+        final Evaluation evaluation = isWhiteToMove
+                ? searchRootMove(searchBoard, move, searchDepth, alpha, alpha + 1)
+                : searchRootMove(searchBoard, move, searchDepth, beta - 1, beta);
+        final long score = evaluation.GetScore();
+        return score > alpha && score < beta
+                ? searchRootMove(searchBoard, move, searchDepth, alpha, beta)
+                : evaluation;
+    }
 
-        /*List<ScoredMove> sortedBestMoves = Ordering.from((Comparator<ScoredMove>) (first, second) -> ComparisonChain.start()
-                 .compare(second.getScore(), first.getScore()).result()).immutableSortedCopy(listOfBestMoves);
+    //Statistics of a fork/join task are added to the search that handed it out
+    void addStatistics(final WorkerStatistics statistics) {
+        this.nodesSearched += statistics.getNodesSearched();
+        this.boardsEvaluated += statistics.getBoardsEvaluated();
+        this.cutsOffProduced += statistics.getCutsOffProduced();
+        this.quiescenceNodes += statistics.getQuiescenceNodes();
+    }
 
-        if(!sortedBestMoves.isEmpty()){
-            final double maxScore = sortedBestMoves.get(0).getScore();
-            final List<ScoredMove> filteredMoves = sortedBestMoves.stream()
-                    .filter(move -> Math.abs(maxScore - move.getScore()) < 10)
-                    .collect(Collectors.toList());
-            final int sz = filteredMoves.size();
-            final int index = sz > 1 ? random.nextInt(sz) : 0;
-            Move bestMove_ =  filteredMoves.get(index).getMove();
-            double bestScore_ = filteredMoves.get(index).getScore();
-            bestMove = bestMove_;
-            evalBest = bestScore_;
-        }*/
+    //Sets a fork/join worker up for a task: the clock and the token of the search that hands it out, a copy of the
+    //position on its own board and the split point it searches under, if any
+    void startTask(final long searchId, final AlphaBeta owner, final SearchBoard board, final SplitPoint splitPoint) {
+        if (this.workerSearchId != searchId) {
+            //What the worker learned belongs to an earlier search
+            clearMoveOrderingTables();
+            this.workerSearchId = searchId;
+        }
+        this.cancellationToken = owner.cancellationToken;
+        this.searchStartTime = owner.searchStartTime;
+        this.splitPoint = splitPoint;
+        this.isSearchStopped = false;
+        this.nodesSearched = 0;
+        this.boardsEvaluated = 0;
+        this.cutsOffProduced = 0;
+        this.quiescenceNodes = 0;
+        if (this.workerBoard == null) {
+            this.workerBoard = new SearchBoard(board);
+        } else {
+            this.workerBoard.copyFrom(board);
+        }
+    }
 
-        System.out.println(String.format("Best move = %s eval = %d", bestMove, evalBest));
-        System.out.println("Move time = " + (System.currentTimeMillis() - startTime) / 1000 + " seconds");
+    void finishTask() {
+        this.splitPoint = null;
+    }
 
-        return bestMove;
+    SearchBoard getWorkerBoard() {
+        return this.workerBoard;
     }
 
-    private static String score(final Player currentPlayer,
-                                final long highestSeenValue,
-                                final long lowestSeenValue) {
+    SplitPoint getSplitPoint() {
+        return this.splitPoint;
+    }
 
-        if (currentPlayer.getAlliance().isWhite()) {
-            return "[score: " + highestSeenValue + "]";
-        } else if (currentPlayer.getAlliance().isBlack()) {
-            return "[score: " + lowestSeenValue + "]";
+    //A young brother of the split point of the task, searched on the board of the worker
+    void searchYoungBrother(final int move, final int depth) {
+        final SearchBoard searchBoard = this.workerBoard;
+        searchBoard.makeMove(move);
+        //Young brothers are never the first move, so they get the null window of the serial search
+        final long score = searchBoard.getSideToMove().isWhite()
+                ? maxWithNullWindow(searchBoard, depth - 1, this.splitPoint.getAlpha(), this.splitPoint.getBeta())
+                : minWithNullWindow(searchBoard, depth - 1, this.splitPoint.getAlpha(), this.splitPoint.getBeta());
+        if (!this.isSearchStopped) {
+            final int ply = searchBoard.getPly();
+            this.splitPoint.update(move, score, this.principalVariations[ply], this.principalVariationLengths[ply]);
         }
-        throw new RuntimeException("Eso tiene mala pinta hijo mio!");
     }
 
+    private boolean canSplit(final int depth) {
+        return this.parallelSearch != null && this.parallelSearch.isSplittingInternalNodes() &&
+                depth >= MIN_SPLIT_DEPTH;
+    }
+
+    Evaluation searchRootMove(final SearchBoard searchBoard, final int move, final int searchDepth,
+                              final long alpha, final long beta) {
+        searchBoard.makeMove(move);
+        final long score = searchBoard.getSideToMove().isWhite()
+                ? max(searchBoard, searchDepth - 1, alpha, beta)
+                : min(searchBoard, searchDepth - 1, alpha, beta);
+        //Copied once per root move, the tree itself only moves ints between the rows of the table
+        final int ply = searchBoard.getPly();
+        final int[] principalVariation = new int[this.principalVariationLengths[ply] + 1];
+        principalVariation[0] = move;
+        if (principalVariation.length > 1) {
+            System.arraycopy(this.principalVariations[ply], 0, principalVariation, 1,
+                    this.principalVariationLengths[ply]);
+        }
+        searchBoard.unmakeMove();
+        return new Evaluation(score, principalVariation);
+    }
+
+    void reportRootMove(final int move, final int moveCounter, final int numMoves, final int searchDepth,
+                        final Evaluation evaluation, final long candidateMoveStartTime) {
+        if (isMainThread() && searchDepth == this.timeControl.getMaxDepth()) {
+            StringBuilder builder = new StringBuilder();
+            builder.append(String.format("Analyzed move %s (%d / %d):  with depth %d q: %d\n",
+                    SearchMove.toString(move), moveCounter, numMoves, searchDepth, this.quiescenceNodes));
+            builder.append(String.format("best move: %s score: %d\nbest line: %s\n", SearchMove.toString(move),
+                    evaluation.GetScore(), evaluation.GetBestLine()));
+            builder.append(String.format("\nTime taken: %s", calculateTimeTaken(candidateMoveStartTime,
+                    System.nanoTime())));
+            System.out.println(builder.toString());
+        }
+    }
+
+    //The token is polled at every node, the clock only every thousand nodes
+    private boolean shouldStop() {
+        if (!this.isSearchStopped && (this.cancellationToken.isCancelled() ||
+                (this.splitPoint != null && this.splitPoint.isAborted()) ||
+                (++this.nodesSearched & NODES_BETWEEN_TIME_CHECKS) == 0 &&
+                        getElapsedMillis() >= this.timeControl.getHardLimitMillis())) {
+            this.isSearchStopped = true;
+        }
+        return this.isSearchStopped;
+    }
+
+    public long getNodesSearched() {
+        return this.nodesSearched;
+    }
+
+    public long getAspirationResearches() {
+        return this.aspirationResearches;
+    }
+
+    long getBoardsEvaluated() {
+        return this.boardsEvaluated;
+    }
+
+    long getCutsOffProduced() {
+        return this.cutsOffProduced;
+    }
+
+    long getQuiescenceNodes() {
+        return this.quiescenceNodes;
+    }
+
+    boolean isSearchStopped() {
+        return this.isSearchStopped;
+    }
+
+    void stopSearch() {
+        this.isSearchStopped = true;
+    }
+
+    private boolean isMainThread() {
+        return this.threadIndex == MAIN_THREAD;
+    }
+
+    void report(final String message) {
+        if (isMainThread()) {
+            System.out.println(message);
+        }
+    }
 
-    private Evaluation max(final Board board,
-                           final int depth,
-                           long alpha,
-                           long beta, String currLine) {
-        if (depth == 0 || board.isEndGameScenario()) {
+    private long getElapsedMillis() {
+        return (this.timeControl.getTicker().read() - this.searchStartTime) / 1000000;
+    }
+
+    private long max(final SearchBoard board,
+                     final int depth,
+                     long alpha,
+                     long beta) {
+        final int ply = board.getPly();
+        this.principalVariationLengths[ply] = 0;
+        if (shouldStop()) {
+            return 0;
+        }
+        if (board.isInsufficientMaterial()) {
             this.boardsEvaluated++;
-            long score = this.boardEvaluator.evaluate(board, depth);
-            return new Evaluation(score, currLine.toString(), board.toDecoratedString());
+            return this.positionEvaluator.evaluate(board, depth);
+        }
+        if (depth <= 0) {
+            return quiescenceMax(board, alpha, beta);
+        }
+        final long entry = this.transpositionTable.probe(board.getZobristKey());
+        if (isUsableEntry(entry, depth, alpha, beta)) {
+            return getScore(entry, depth);
+        }
+        if (beta != Long.MAX_VALUE && isNullMovePruningAllowed(board, depth)) {
+            final int reducedDepth = depth - 1 - getNullMoveReduction(depth);
+            board.makeNullMove();
+            final long score = min(board, reducedDepth, beta - 1, beta);
+            board.unmakeNullMove();
+            if (this.isSearchStopped) {
+                return score;
+            }
+            if (score >= beta && (!isNullMoveVerified(depth) || verifyNullMoveCutoff(board, depth, beta, true))) {
+                ++this.cutsOffProduced;
+                //A mate found after passing is not a mate that can be forced
+                return StandardPositionEvaluator.isMateScore(score) ? beta : score;
+            }
         }
+        final long initialAlpha = alpha;
         long value = Long.MIN_VALUE;
-        Evaluation evalBest = null;
-        for (final Move move : MoveSorter.SMART.sort((board.getCurrentPlayer().getLegalMoves()))) {
-            final MoveTransition moveTransition = board.getCurrentPlayer().makeMove(move);
-            if (moveTransition.getMoveStatus().isDone()) {
-                Evaluation evaluation = min(moveTransition.getTransitedBoard(), depth - 1, alpha, beta, String.format("%s %s ", currLine, move));
-                if (evaluation != null) {
-                    long score = evaluation.GetScore();
-                    value = Math.max(score, value);
-                    if (score == value) {
-                        evalBest = evaluation;
-                    }
-                    alpha = Math.max(alpha, value);
-                    if (value >= beta) {
-                        ++this.cutsOffProduced;
-                        break;
+        int bestMove = SearchMove.NO_MOVE;
+        final MovePicker movePicker = getMovePicker(ply);
+        movePicker.reset(board, TranspositionTable.getMove(entry), this.killers[ply], getCounterMove(board),
+                this.history[board.getSideToMove().ordinal()]);
+        for (int move = movePicker.next(); move != SearchMove.NO_MOVE; move = movePicker.next()) {
+            if (bestMove != SearchMove.NO_MOVE && canSplit(depth)) {
+                final int[] youngBrothers = getYoungBrothers(ply);
+                youngBrothers[0] = move;
+                final int end = movePicker.remainingMoves(youngBrothers, 1);
+                final SplitPoint splitPoint = this.parallelSearch.searchYoungBrothers(this, board, youngBrothers, 0,
+                        end, depth, alpha, beta, true);
+                if (this.isSearchStopped) {
+                    return value;
+                }
+                if (splitPoint.getBestMove() != SearchMove.NO_MOVE && splitPoint.getBestScore() > value) {
+                    value = splitPoint.getBestScore();
+                    bestMove = splitPoint.getBestMove();
+                    if (value > alpha) {
+                        updatePrincipalVariation(ply, bestMove, splitPoint.getBestLine(),
+                                splitPoint.getBestLine().length);
                     }
                 }
+                if (value >= beta) {
+                    ++this.cutsOffProduced;
+                    updateQuietMoveStatistics(board, ply, bestMove, depth);
+                }
+                break;
+            }
+            board.makeMove(move);
+            final long score = bestMove == SearchMove.NO_MOVE
+                    ? min(board, depth - 1, alpha, beta)
+                    : minWithNullWindow(board, depth - 1, alpha, beta);
+            board.unmakeMove();
+            if (this.isSearchStopped) {
+                return score;
+            }
+            if (score > value || bestMove == SearchMove.NO_MOVE) {
+                value = score;
+                bestMove = move;
+            }
+            //Moves that fail low have no exact line, so the table is only written when alpha improves
+            if (score > alpha) {
+                alpha = score;
+                updatePrincipalVariation(ply, move, this.principalVariations[ply + 1],
+                        this.principalVariationLengths[ply + 1]);
             }
+            if (value >= beta) {
+                ++this.cutsOffProduced;
+                updateQuietMoveStatistics(board, ply, move, depth);
+                break;
+            }
+        }
+        if (bestMove == SearchMove.NO_MOVE) {
+            //No legal move at all, the evaluator tells checkmate from stalemate
+            this.boardsEvaluated++;
+            return this.positionEvaluator.evaluate(board, depth);
         }
-        return evalBest;
+        storeEvaluation(board, depth, value, initialAlpha, beta, bestMove);
+        return value;
     }
 
-
-    private Evaluation min(final Board board,
-                           final int depth,
-                           long alpha,
-                           long beta, String currLine) {
-        if (depth == 0 || board.isEndGameScenario()) {
+    private long min(final SearchBoard board,
+                     final int depth,
+                     long alpha,
+                     long beta) {
+        final int ply = board.getPly();
+        this.principalVariationLengths[ply] = 0;
+        if (shouldStop()) {
+            return 0;
+        }
+        if (board.isInsufficientMaterial()) {
             this.boardsEvaluated++;
-            long score = this.boardEvaluator.evaluate(board, depth);
-            return new Evaluation(score, currLine.toString(), board.toDecoratedString());
+            return this.positionEvaluator.evaluate(board, depth);
+        }
+        if (depth <= 0) {
+            return quiescenceMin(board, alpha, beta);
+        }
+        final long entry = this.transpositionTable.probe(board.getZobristKey());
+        if (isUsableEntry(entry, depth, alpha, beta)) {
+            return getScore(entry, depth);
         }
+        if (alpha != Long.MIN_VALUE && isNullMovePruningAllowed(board, depth)) {
+            final int reducedDepth = depth - 1 - getNullMoveReduction(depth);
+            board.makeNullMove();
+            final long score = max(board, reducedDepth, alpha, alpha + 1);
+            board.unmakeNullMove();
+            if (this.isSearchStopped) {
+                return score;
+            }
+            if (score <= alpha && (!isNullMoveVerified(depth) || verifyNullMoveCutoff(board, depth, alpha, false))) {
+                ++this.cutsOffProduced;
+                return StandardPositionEvaluator.isMateScore(score) ? alpha : score;
+            }
+        }
+        final long initialBeta = beta;
         long value = Long.MAX_VALUE;
-        Evaluation evalBest = null;
-        for (final Move move : MoveSorter.SMART.sort((board.getCurrentPlayer().getLegalMoves()))) {
-            final MoveTransition moveTransition = board.getCurrentPlayer().makeMove(move);
-            //calculateQuiescenceDepth(moveTransition, depth)
-            if (moveTransition.getMoveStatus().isDone()) {
-                Evaluation evaluation = max(moveTransition.getTransitedBoard(), depth - 1, alpha, beta, String.format("%s %s ", currLine, move));
-                if (evaluation != null) {
-                    long score = evaluation.GetScore();
-                    value = Math.min(score, value);
-                    if (score == value) {
-                        value = score;
-                        evalBest = evaluation;
-                    }
-                    beta = Math.min(beta, value);
-                    if (value <= alpha) {
-                        ++this.cutsOffProduced;
-                        break;
+        int bestMove = SearchMove.NO_MOVE;
+        final MovePicker movePicker = getMovePicker(ply);
+        movePicker.reset(board, TranspositionTable.getMove(entry), this.killers[ply], getCounterMove(board),
+                this.history[board.getSideToMove().ordinal()]);
+        for (int move = movePicker.next(); move != SearchMove.NO_MOVE; move = movePicker.next()) {
+            if (bestMove != SearchMove.NO_MOVE && canSplit(depth)) {
+                final int[] youngBrothers = getYoungBrothers(ply);
+                youngBrothers[0] = move;
+                final int end = movePicker.remainingMoves(youngBrothers, 1);
+                final SplitPoint splitPoint = this.parallelSearch.searchYoungBrothers(this, board, youngBrothers, 0,
+                        end, depth, alpha, beta, false);
+                if (this.isSearchStopped) {
+                    return value;
+                }
+                if (splitPoint.getBestMove() != SearchMove.NO_MOVE && splitPoint.getBestScore() < value) {
+                    value = splitPoint.getBestScore();
+                    bestMove = splitPoint.getBestMove();
+                    if (value < beta) {
+                        updatePrincipalVariation(ply, bestMove, splitPoint.getBestLine(),
+                                splitPoint.getBestLine().length);
                     }
                 }
+                if (value <= alpha) {
+                    ++this.cutsOffProduced;
+                    updateQuietMoveStatistics(board, ply, bestMove, depth);
+                }
+                break;
+            }
+            board.makeMove(move);
+            final long score = bestMove == SearchMove.NO_MOVE
+                    ? max(board, depth - 1, alpha, beta)
+                    : maxWithNullWindow(board, depth - 1, alpha, beta);
+            board.unmakeMove();
+            if (this.isSearchStopped) {
+                return score;
+            }
+            if (score < value || bestMove == SearchMove.NO_MOVE) {
+                value = score;
+                bestMove = move;
+            }
+            if (score < beta) {
+                beta = score;
+                updatePrincipalVariation(ply, move, this.principalVariations[ply + 1],
+                        this.principalVariationLengths[ply + 1]);
+            }
+            if (value <= alpha) {
+                ++this.cutsOffProduced;
+                updateQuietMoveStatistics(board, ply, move, depth);
+                break;
             }
         }
-        return evalBest;
+        if (bestMove == SearchMove.NO_MOVE) {
+            //No legal move at all, the evaluator tells checkmate from stalemate
+            this.boardsEvaluated++;
+            return this.positionEvaluator.evaluate(board, depth);
+        }
+        storeEvaluation(board, depth, value, alpha, initialBeta, bestMove);
+        return value;
+    }
+
+    private boolean isNullMovePruningAllowed(final SearchBoard board, final int depth) {
+        return this.searchOptions.isNullMovePruning() && depth >= NULL_MOVE_MIN_DEPTH &&
+                board.getPly() != this.nullMoveVerificationPly && board.canPassTheTurn();
     }
 
-    private int calculateQuiescenceDepth(final MoveTransition moveTransition, int depth) {
-        if (depth == 1 && this.quiescenceCount < MAX_QUIESCENCE) {
-            int activityMeasure = 0;
-            if (moveTransition.getTransitedBoard().getCurrentPlayer().isUnderCheck()) {
-                activityMeasure += 2;
+    private boolean isNullMoveVerified(final int depth) {
+        return this.searchOptions.isNullMoveVerification() && depth >= NULL_MOVE_VERIFICATION_DEPTH;
+    }
+
+    private static int getNullMoveReduction(final int depth) {
+        return depth >= DEEP_NULL_MOVE_DEPTH ? NULL_MOVE_REDUCTION + 1 : NULL_MOVE_REDUCTION;
+    }
+
+    //Searches the node itself at the reduced depth with a null window on the bound the null move has beaten,
+    //without pruning it with a null move again
+    private boolean verifyNullMoveCutoff(final SearchBoard board, final int depth, final long bound,
+                                         final boolean isMaxNode) {
+        final int verifiedPly = this.nullMoveVerificationPly;
+        this.nullMoveVerificationPly = board.getPly();
+        final int verificationDepth = depth - getNullMoveReduction(depth);
+        final boolean isConfirmed = isMaxNode
+                ? max(board, verificationDepth, bound - 1, bound) >= bound
+                : min(board, verificationDepth, bound, bound + 1) <= bound;
+        this.nullMoveVerificationPly = verifiedPly;
+        return isConfirmed && !this.isSearchStopped;
+    }
+
+    //Principal variation search of the moves behind the first one: a null window only proves that a move is no
+    //better than the best so far, a move that turns out better is searched again with the full window
+    private long minWithNullWindow(final SearchBoard board, final int depth, final long alpha, final long beta) {
+        if (!this.searchOptions.isPrincipalVariationSearch()) {
+            return min(board, depth, alpha, beta);
+        }
+        final long score = min(board, depth, alpha, alpha + 1);
+        return score > alpha && score < beta && !this.isSearchStopped ? min(board, depth, alpha, beta) : score;
+    }
+
+    private long maxWithNullWindow(final SearchBoard board, final int depth, final long alpha, final long beta) {
+        if (!this.searchOptions.isPrincipalVariationSearch()) {
+            return max(board, depth, alpha, beta);
+        }
+        final long score = max(board, depth, beta - 1, beta);
+        return score > alpha && score < beta && !this.isSearchStopped ? max(board, depth, alpha, beta) : score;
+    }
+
+    //Searches captures and promotions until the position is quiet, so that no score is taken with a piece hanging.
+    //The side to move may stand pat on the static evaluation instead of capturing, except in check: then every
+    //evasion is searched and having none is checkmate
+    private long quiescenceMax(final SearchBoard board, long alpha, final long beta) {
+        final int ply = board.getPly();
+        this.principalVariationLengths[ply] = 0;
+        if (shouldStop()) {
+            return 0;
+        }
+        ++this.quiescenceNodes;
+        final boolean isInCheck = board.isInCheck();
+        long value = Long.MIN_VALUE;
+        long standPat = Long.MIN_VALUE;
+        if (!isInCheck || ply >= MAX_SEARCH_PLY) {
+            this.boardsEvaluated++;
+            standPat = this.positionEvaluator.evaluate(board, 0);
+            if (standPat >= beta || ply >= MAX_SEARCH_PLY) {
+                return standPat;
+            }
+            value = standPat;
+            alpha = Math.max(alpha, standPat);
+        }
+        final MovePicker movePicker = getMovePicker(ply);
+        movePicker.resetForQuiescence(board);
+        for (int move = movePicker.next(); move != SearchMove.NO_MOVE; move = movePicker.next()) {
+            if (!isInCheck && standPat + getCaptureGain(move) + DELTA_MARGIN <= alpha) {
+                continue;
+            }
+            board.makeMove(move);
+            final long score = quiescenceMin(board, alpha, beta);
+            board.unmakeMove();
+            if (this.isSearchStopped) {
+                return score;
+            }
+            value = Math.max(value, score);
+            if (score > alpha) {
+                alpha = score;
+                updatePrincipalVariation(ply, move, this.principalVariations[ply + 1],
+                        this.principalVariationLengths[ply + 1]);
+            }
+            if (value >= beta) {
+                ++this.cutsOffProduced;
+                break;
             }
-            final Collection<Move> history = BoardUtils.getMoveHistory(moveTransition.getTransitedBoard(), 4);
+        }
+        if (value == Long.MIN_VALUE) {
+            //In check without an evasion
+            this.boardsEvaluated++;
+            return this.positionEvaluator.evaluate(board, 0);
+        }
+        return value;
+    }
 
-            for (final Move move : history) {
-                if (move.isCapturingMove()) {
-                    ++activityMeasure;
+    private long quiescenceMin(final SearchBoard board, final long alpha, long beta) {
+        final int ply = board.getPly();
+        this.principalVariationLengths[ply] = 0;
+        if (shouldStop()) {
+            return 0;
+        }
+        ++this.quiescenceNodes;
+        final boolean isInCheck = board.isInCheck();
+        long value = Long.MAX_VALUE;
+        long standPat = Long.MAX_VALUE;
+        if (!isInCheck || ply >= MAX_SEARCH_PLY) {
+            this.boardsEvaluated++;
+            standPat = this.positionEvaluator.evaluate(board, 0);
+            if (standPat <= alpha || ply >= MAX_SEARCH_PLY) {
+                return standPat;
+            }
+            value = standPat;
+            beta = Math.min(beta, standPat);
+        }
+        final MovePicker movePicker = getMovePicker(ply);
+        movePicker.resetForQuiescence(board);
+        for (int move = movePicker.next(); move != SearchMove.NO_MOVE; move = movePicker.next()) {
+            if (!isInCheck && standPat - getCaptureGain(move) - DELTA_MARGIN >= beta) {
+                continue;
+            }
+            board.makeMove(move);
+            final long score = quiescenceMax(board, alpha, beta);
+            board.unmakeMove();
+            if (this.isSearchStopped) {
+                return score;
+            }
+            value = Math.min(value, score);
+            if (score < beta) {
+                beta = score;
+                updatePrincipalVariation(ply, move, this.principalVariations[ply + 1],
+                        this.principalVariationLengths[ply + 1]);
+            }
+            if (value <= alpha) {
+                ++this.cutsOffProduced;
+                break;
+            }
+        }
+        if (value == Long.MAX_VALUE) {
+            this.boardsEvaluated++;
+            return this.positionEvaluator.evaluate(board, 0);
+        }
+        return value;
+    }
+
+    //The most a capture or promotion can change the material balance by
+    private static long getCaptureGain(final int move) {
+        long gain = SearchMove.isCapturingMove(move)
+                ? StandardPositionEvaluator.getMaterialScore(SearchMove.getCapturedPieceType(move))
+                : 0;
+        if (SearchMove.isPawnPromotionMove(move)) {
+            gain += StandardPositionEvaluator.getMaterialScore(SearchMove.getPromotionPieceType(move)) -
+                    StandardPositionEvaluator.getMaterialScore(PieceType.PAWN);
+        }
+        return gain;
+    }
+
+    //Killers of older searches rarely fit the new root, history is only halved as most of it still applies
+    private void clearMoveOrderingTables() {
+        for (final int[] plyKillers : this.killers) {
+            Arrays.fill(plyKillers, SearchMove.NO_MOVE);
+        }
+        for (final int[] counterMovesFrom : this.counterMoves) {
+            Arrays.fill(counterMovesFrom, SearchMove.NO_MOVE);
+        }
+        ageHistory();
+    }
+
+    private void ageHistory() {
+        for (final int[][] allianceHistory : this.history) {
+            for (final int[] historyFrom : allianceHistory) {
+                for (int to = 0; to < historyFrom.length; ++to) {
+                    historyFrom[to] /= 2;
                 }
             }
+        }
+    }
+
+    private int getCounterMove(final SearchBoard board) {
+        final int previousMove = board.getPreviousMove(0);
+        return previousMove == SearchMove.NO_MOVE
+                ? SearchMove.NO_MOVE
+                : this.counterMoves[SearchMove.getFrom(previousMove)][SearchMove.getTo(previousMove)];
+    }
+
+    //Captures are ordered by their material already, only quiet moves that cut off are remembered
+    private void updateQuietMoveStatistics(final SearchBoard board, final int ply, final int move, final int depth) {
+        if (SearchMove.isCapturingMove(move) || SearchMove.isPawnPromotionMove(move)) {
+            return;
+        }
+        final int[] plyKillers = this.killers[ply];
+        if (plyKillers[0] != move) {
+            System.arraycopy(plyKillers, 0, plyKillers, 1, plyKillers.length - 1);
+            plyKillers[0] = move;
+        }
+        final int[] historyFrom = this.history[board.getSideToMove().ordinal()][SearchMove.getFrom(move)];
+        historyFrom[SearchMove.getTo(move)] += depth * depth;
+        if (historyFrom[SearchMove.getTo(move)] > MAX_HISTORY_SCORE) {
+            ageHistory();
+        }
+        final int previousMove = board.getPreviousMove(0);
+        if (previousMove != SearchMove.NO_MOVE) {
+            this.counterMoves[SearchMove.getFrom(previousMove)][SearchMove.getTo(previousMove)] = move;
+        }
+    }
+
+    private MovePicker getMovePicker(final int ply) {
+        if (this.movePickers[ply] == null) {
+            this.movePickers[ply] = new MovePicker();
+        }
+        return this.movePickers[ply];
+    }
+
+    private int[] getYoungBrothers(final int ply) {
+        if (this.youngBrothers[ply] == null) {
+            this.youngBrothers[ply] = new int[SearchBoard.MAX_MOVES];
+        }
+        return this.youngBrothers[ply];
+    }
+
+    //The line of a ply is its best move followed by the line of the child it leads to
+    private void updatePrincipalVariation(final int ply, final int move, final int[] childLine,
+                                          final int childLineLength) {
+        if (this.principalVariations[ply] == null) {
+            this.principalVariations[ply] = new int[SearchBoard.MAX_GAME_LENGTH - ply];
+        }
+        final int[] line = this.principalVariations[ply];
+        line[0] = move;
+        if (childLineLength > 0) {
+            System.arraycopy(childLine, 0, line, 1, childLineLength);
+        }
+        this.principalVariationLengths[ply] = childLineLength + 1;
+    }
+
+    //Scores are white-positive in both max and min nodes, so the bounds mean the same for both of them
+    private static boolean isUsableEntry(final long entry, final int depth, final long alpha, final long beta) {
+        if (entry == TranspositionTable.NO_ENTRY || TranspositionTable.getDepth(entry) < depth) {
+            return false;
+        }
+        final long score = getScore(entry, depth);
+        switch (TranspositionTable.getBound(entry)) {
+            case TranspositionTable.EXACT:
+                return true;
+            case TranspositionTable.LOWER_BOUND:
+                return score >= beta;
+            case TranspositionTable.UPPER_BOUND:
+                return score <= alpha;
+            default:
+                return false;
+        }
+    }
+
+    private void storeEvaluation(final SearchBoard board, final int depth, final long value, final long alpha,
+                                 final long beta, final int bestMove) {
+        final int bound = value <= alpha
+                ? TranspositionTable.UPPER_BOUND
+                : value >= beta ? TranspositionTable.LOWER_BOUND : TranspositionTable.EXACT;
+        this.transpositionTable.store(board.getZobristKey(), depth,
+                StandardPositionEvaluator.shiftMateScore(value, TimeControl.MAX_SEARCH_DEPTH - depth), bound,
+                TranspositionTable.encodeMove(bestMove));
+    }
+
+    //A mate score counts the depth left at the mate, which depends on the iteration that found it. The table keeps
+    //it as seen from a node with the deepest search left and moves it back to the depth the node is probed with
+    private static long getScore(final long entry, final int depth) {
+        return StandardPositionEvaluator.shiftMateScore(TranspositionTable.getScore(entry),
+                depth - TimeControl.MAX_SEARCH_DEPTH);
+    }
 
-            if (activityMeasure > 3) {
-                ++this.quiescenceCount;
-                return 2;
+    private static List<Integer> sortMoves(final SearchBoard board, final int[] moves,
+                                           final int transpositionTableMove) {
+        final List<Integer> sortedMoves = new ArrayList<>(SearchMoveSorter.STANDARD.sort(board, moves));
+        for (int i = 1; i < sortedMoves.size(); ++i) {
+            if (TranspositionTable.isSameMove(sortedMoves.get(i), transpositionTableMove)) {
+                sortedMoves.add(0, sortedMoves.remove(i));
+                break;
             }
         }
-        return depth - 1;
+        return sortedMoves;
     }
 
     private static String calculateTimeTaken(final long start, final long end) {
@@ -0,0 +1,48 @@
+package com.igorternyuk.engine.player.ai;
+
+import com.igorternyuk.engine.pieces.PieceType;
+
+/**
+ * Root window of an iteration around the score of the previous one. A score on or beyond an edge of the window is
+ * only a bound, so the side it fell on is doubled and the iteration searched again until the score falls inside.
+ * A side that would grow wider than four queens is opened completely.
+ */
+public final class AspirationWindow {
+    private static final long MAX_WIDTH = 4 * StandardPositionEvaluator.getMaterialScore(PieceType.QUEEN);
+
+    private final long center;
+    private long lowerWidth;
+    private long upperWidth;
+
+    public AspirationWindow(final long center, final long initialWidth) {
+        this.center = center;
+        this.lowerWidth = initialWidth;
+        this.upperWidth = initialWidth;
+    }
+
+    public long getAlpha() {
+        return this.lowerWidth > MAX_WIDTH ? Long.MIN_VALUE : this.center - this.lowerWidth;
+    }
+
+    public long getBeta() {
+        return this.upperWidth > MAX_WIDTH ? Long.MAX_VALUE : this.center + this.upperWidth;
+    }
+
+    //Widens the side the score failed on, false once the score is exact and the iteration is done
+    public boolean widen(final long score) {
+        if (score <= getAlpha() && getAlpha() != Long.MIN_VALUE) {
+            this.lowerWidth *= 2;
+            return true;
+        }
+        if (score >= getBeta() && getBeta() != Long.MAX_VALUE) {
+            this.upperWidth *= 2;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return getAlpha() + ".." + getBeta();
+    }
+}
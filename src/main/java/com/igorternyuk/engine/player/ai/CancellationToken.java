@@ -0,0 +1,36 @@
+package com.igorternyuk.engine.player.ai;
+
+/**
+ * Stop flag shared between a running search and the code that started it. Strategies poll it at every node,
+ * so a search ends within about a millisecond of {@link #cancel()} or of the optional deadline and returns the
+ * best move found so far.
+ */
+public final class CancellationToken {
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+    private final long deadline;
+    private volatile boolean isCancelled;
+
+    public CancellationToken() {
+        this(NO_DEADLINE);
+    }
+
+    private CancellationToken(final long deadline) {
+        this.deadline = deadline;
+        this.isCancelled = false;
+    }
+
+    public static CancellationToken withTimeout(final long timeoutMillis) {
+        return new CancellationToken(System.nanoTime() + timeoutMillis * 1000000);
+    }
+
+    public void cancel() {
+        this.isCancelled = true;
+    }
+
+    public boolean isCancelled() {
+        if (!this.isCancelled && this.deadline != NO_DEADLINE && System.nanoTime() - this.deadline >= 0) {
+            this.isCancelled = true;
+        }
+        return this.isCancelled;
+    }
+}
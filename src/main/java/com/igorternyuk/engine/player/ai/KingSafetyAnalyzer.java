@@ -1,10 +1,9 @@
 package com.igorternyuk.engine.player.ai;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.ListMultimap;
+import com.igorternyuk.engine.board.BitBoard;
+import com.igorternyuk.engine.board.Board;
 import com.igorternyuk.engine.board.BoardUtils;
 import com.igorternyuk.engine.board.Location;
-import com.igorternyuk.engine.moves.Move;
 import com.igorternyuk.engine.pieces.Piece;
 import com.igorternyuk.engine.pieces.PieceType;
 import com.igorternyuk.engine.player.Player;
@@ -157,26 +156,20 @@ public class KingSafetyAnalyzer {
     }
 
     public int scoreEnemyAttackPosibility() {
-        final Set<Location> kingZone = getKingsZone();
-        final Set<Piece> attackingPieces = new HashSet<>(8);
-        final List<Move> attackingMoves = this.player.getOpponentLegalMoves().stream()
-                .filter(move -> kingZone.contains(move.getDestination()))
-                .collect(Collectors.toList());
-        attackingMoves.forEach(move -> attackingPieces.add(move.getMovedPiece()));
-        final int numberOfAttackers = attackingPieces.size();
-        final int attackWeight = getAttackWeight(numberOfAttackers);
-        final ListMultimap<Location, Piece> attackTable = ArrayListMultimap.create();
-        attackingMoves.forEach(move -> {
-            attackTable.put(move.getDestination(), move.getMovedPiece());
-        });
-
+        final Board board = this.player.getBoard();
+        final long opponentPieces = board.getBitBoard().getPieces(this.player.getOpponentAlliance());
+        long attackingPieces = BitBoard.EMPTY;
         int valueOfAttack = 0;
-        for (final Location location : attackTable.asMap().keySet()) {
-            List<Piece> currentLocationAttackers = attackTable.get(location);
-            for (final Piece piece : currentLocationAttackers) {
-                valueOfAttack += ATTACK_VALUE_MAP.get(piece.getPieceType());
+        for (final Location location : this.kingZone) {
+            long attackers = board.attackersTo(location) & opponentPieces;
+            attackingPieces |= attackers;
+            while (attackers != BitBoard.EMPTY) {
+                final int square = Long.numberOfTrailingZeros(attackers);
+                attackers &= attackers - 1;
+                valueOfAttack += ATTACK_VALUE_MAP.get(board.getTile(square).getPiece().getPieceType());
             }
         }
+        final int attackWeight = getAttackWeight(Long.bitCount(attackingPieces));
         return (int) (valueOfAttack * attackWeight / 100.f);
     }
 
@@ -0,0 +1,128 @@
+package com.igorternyuk.engine.player.ai;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.moves.Move;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Lazy SMP: the main thread and the helper threads run the same iterative deepening search on the same root.
+ * They exchange nothing but transposition table entries, so the helpers fill the table with results the main
+ * thread later finds ready. Every second helper searches one ply deeper and all of them try the root moves in a
+ * different order. The move of the main thread is played.
+ *
+ * The helper threads and their searches live as long as the strategy, one instance plays every move of a game
+ * and {@link #shutdown()} stops the threads once it is no longer needed.
+ */
+public class LazySmp implements MoveStrategy {
+    private final TranspositionTable transpositionTable;
+    private final int numberOfThreads;
+    private final AlphaBeta mainSearch;
+    private final List<AlphaBeta> helpers = new ArrayList<>();
+    //Null with a single thread
+    private final ExecutorService helperExecutor;
+    private long nodesSearched;
+    private long nodesPerSecond;
+    private SearchResult searchResult = SearchResult.NONE;
+
+    public LazySmp(final TimeControl timeControl, final int numberOfThreads) {
+        this(timeControl, new TranspositionTable(), numberOfThreads);
+    }
+
+    public LazySmp(final TimeControl timeControl, final TranspositionTable transpositionTable,
+                   final int numberOfThreads) {
+        if (numberOfThreads < 1) {
+            throw new RuntimeException("Lazy SMP needs at least one thread: " + numberOfThreads);
+        }
+        this.transpositionTable = transpositionTable;
+        this.numberOfThreads = numberOfThreads;
+        this.mainSearch = new AlphaBeta(timeControl, transpositionTable, AlphaBeta.MAIN_THREAD, null,
+                SplitMode.ROOT_MOVES);
+        for (int threadIndex = 1; threadIndex < numberOfThreads; ++threadIndex) {
+            this.helpers.add(new AlphaBeta(timeControl, transpositionTable, threadIndex, null, SplitMode.ROOT_MOVES));
+        }
+        //Daemon threads do not keep the application alive if the strategy is never shut down
+        this.helperExecutor = this.helpers.isEmpty() ? null : Executors.newFixedThreadPool(this.helpers.size(),
+                new ThreadFactoryBuilder().setNameFormat("lazy-smp-helper-%d").setDaemon(true).build());
+    }
+
+    //One search at a time: the searches of the threads are reused from one move to the next
+    @Override
+    public synchronized Move execute(final Board board, final CancellationToken cancellationToken) {
+        final long startTime = System.nanoTime();
+        //A helper that started storing before the new generation would have its entries replaced first
+        this.transpositionTable.newSearch();
+        final CancellationToken helpersCancellationToken = new CancellationToken();
+        final List<Future<Move>> helperResults = new ArrayList<>();
+        for (final AlphaBeta helper : this.helpers) {
+            helperResults.add(this.helperExecutor.submit(() -> helper.search(board, helpersCancellationToken)));
+        }
+
+        final Move bestMove;
+        try {
+            bestMove = this.mainSearch.search(board, cancellationToken);
+        } finally {
+            helpersCancellationToken.cancel();
+            for (final Future<Move> helperResult : helperResults) {
+                waitForHelper(helperResult);
+            }
+        }
+
+        this.searchResult = this.mainSearch.getSearchResult();
+        this.nodesSearched = this.mainSearch.getNodesSearched();
+        final StringBuilder builder = new StringBuilder();
+        builder.append(String.format("Lazy SMP threads: %d main thread nodes: %d", this.numberOfThreads,
+                this.mainSearch.getNodesSearched()));
+        for (int i = 0; i < this.helpers.size(); ++i) {
+            builder.append(String.format(" helper %d nodes: %d", i + 1, this.helpers.get(i).getNodesSearched()));
+            this.nodesSearched += this.helpers.get(i).getNodesSearched();
+        }
+        final long timeTakenMillis = Math.max(1, (System.nanoTime() - startTime) / 1000000);
+        this.nodesPerSecond = this.nodesSearched * 1000 / timeTakenMillis;
+        builder.append(String.format("\nTotal nodes: %d time: %d ms nps: %d", this.nodesSearched, timeTakenMillis,
+                this.nodesPerSecond));
+        this.mainSearch.report(builder.toString());
+        return bestMove;
+    }
+
+    //Stops the helper threads once the running search is over, the strategy cannot search any more after that
+    public void shutdown() {
+        if (this.helperExecutor != null) {
+            this.helperExecutor.shutdown();
+        }
+    }
+
+    //The result of the main thread, whose move is the one played
+    public SearchResult getSearchResult() {
+        return this.searchResult;
+    }
+
+    public long getNodesSearched() {
+        return this.nodesSearched;
+    }
+
+    public long getNodesPerSecond() {
+        return this.nodesPerSecond;
+    }
+
+    private static void waitForHelper(final Future<Move> helperResult) {
+        try {
+            helperResult.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LazySmp";
+    }
+}
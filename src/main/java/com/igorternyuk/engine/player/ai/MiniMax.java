@@ -1,116 +1,122 @@
 package com.igorternyuk.engine.player.ai;
 
 import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.board.SearchBoard;
 import com.igorternyuk.engine.moves.Move;
-import com.igorternyuk.engine.moves.MoveTransition;
-
-import java.util.Collection;
+import com.igorternyuk.engine.moves.SearchMove;
 
 /**
  * Created by igor on 06.12.18.
  */
 public class MiniMax implements MoveStrategy {
-    private final BoardEvaluator boardEvaluator;
+    private final PositionEvaluator positionEvaluator;
     private int searchDepth;
+    private CancellationToken cancellationToken;
+    //Move buffers indexed by the ply of the node, the search board starts from ply zero
+    private int[][] moveBuffers;
 
     public MiniMax(int searchDepth) {
-        this.boardEvaluator = new StandardBoardEvaluator();
+        this.positionEvaluator = new StandardPositionEvaluator();
         this.searchDepth = searchDepth;
+        this.cancellationToken = new CancellationToken();
     }
 
     @Override
-    public Move execute(Board board) {
-        long lowestDetectedValue = Integer.MAX_VALUE;
-        long highestDetectedValue = Integer.MIN_VALUE;
-        long currentValue = 0;
-        Move bestMove = Move.MoveFactory.NULL_MOVE;
+    public Move execute(Board board, final CancellationToken cancellationToken) {
+        long lowestDetectedValue = Long.MAX_VALUE;
+        long highestDetectedValue = Long.MIN_VALUE;
+        long currentValue;
+        int bestMove = SearchMove.NO_MOVE;
 
         final long startTime = System.currentTimeMillis();
+        this.cancellationToken = cancellationToken;
         System.out.println(board.getCurrentPlayer() + " starts thinking with searchDepth " + searchDepth);
-        Collection<Move> legalMoves = board.getCurrentPlayer().getLegalMoves();
-        System.out.println(" legalMoves.size() " + legalMoves.size());
-        System.out.println("board.getCurrentPlayer().isCastled() = " + board.getCurrentPlayer().isCastled());
-        System.out.println("Castle capable => " + legalMoves.stream().anyMatch(move -> {
-            if (move.isCastlingMove()) {
-                System.out.println("castle = " + move);
-                System.out.println("move.getDestination() = " + move.getDestination());
-                return true;
-            }
-            return false;
-        }));
-        for (final Move move : legalMoves) {
-            MoveTransition moveTransition = board.getCurrentPlayer().makeMove(move);
-            if (moveTransition.getMoveStatus().isDone()) {
-                if (board.getCurrentPlayer().getAlliance().isWhite()) {
-                    currentValue = min(moveTransition.getTransitedBoard(), searchDepth - 1);
-                } else {
-                    currentValue = max(moveTransition.getTransitedBoard(), searchDepth - 1);
+        final SearchBoard searchBoard = new SearchBoard(board);
+        this.moveBuffers = new int[this.searchDepth + 1][SearchBoard.MAX_MOVES];
+        final boolean isWhiteToMove = searchBoard.getSideToMove().isWhite();
+        final int[] legalMoves = searchBoard.generateLegalMoves();
+        System.out.println(" legalMoves.size() " + legalMoves.length);
+        for (final int move : legalMoves) {
+            searchBoard.makeMove(move);
+            currentValue = isWhiteToMove ? min(searchBoard, searchDepth - 1) : max(searchBoard, searchDepth - 1);
+            searchBoard.unmakeMove();
+            //The value of an interrupted subtree is meaningless, keep the best of the fully searched moves
+            if (cancellationToken.isCancelled()) {
+                System.out.println("Search cancelled");
+                if (bestMove == SearchMove.NO_MOVE) {
+                    bestMove = move;
                 }
+                break;
+            }
 
-                if (board.getCurrentPlayer().getAlliance().isWhite()) {
-                    if (highestDetectedValue < currentValue) {
-                        highestDetectedValue = currentValue;
-                        bestMove = move;
-                    }
-                } else {
-                    if (lowestDetectedValue > currentValue) {
-                        lowestDetectedValue = currentValue;
-                        bestMove = move;
-                    }
+            if (isWhiteToMove) {
+                if (highestDetectedValue < currentValue) {
+                    highestDetectedValue = currentValue;
+                    bestMove = move;
+                }
+            } else {
+                if (lowestDetectedValue > currentValue) {
+                    lowestDetectedValue = currentValue;
+                    bestMove = move;
                 }
             }
         }
-        System.out.println("bestMove: " + bestMove);
+        System.out.println("bestMove: " + SearchMove.toString(bestMove));
         final long moveTime = System.currentTimeMillis() - startTime;
         System.out.println("Move time: " + moveTime / 1000 + " seconds.");
-        return bestMove;
+        return bestMove == SearchMove.NO_MOVE
+                ? Move.MoveFactory.NULL_MOVE
+                : Move.MoveFactory.createMove(board, bestMove);
     }
 
-    public long min(final Board board, int depth) {
+    public long min(final SearchBoard board, int depth) {
 
         //If we are on the leaf level of the tree we can evaluate the current position
-        if (depth == 0 || isGameOver(board)) {
-            return this.boardEvaluator.evaluate(board, depth);
+        if (depth == 0 || this.cancellationToken.isCancelled() || board.isInsufficientMaterial()) {
+            return this.positionEvaluator.evaluate(board, depth);
         }
-        long lowestDetectedValue = Integer.MAX_VALUE;
-        Collection<Move> legalMoves = board.getCurrentPlayer().getLegalMoves();
-        for (final Move move : legalMoves) {
-            final MoveTransition moveTransition = board.getCurrentPlayer().makeMove(move);
-            if (moveTransition.getMoveStatus().isDone()) {
-                final long currentValue = max(moveTransition.getTransitedBoard(), depth - 1);
-                if (currentValue < lowestDetectedValue) {
-                    lowestDetectedValue = currentValue;
-                }
+        long lowestDetectedValue = Long.MAX_VALUE;
+        final int[] legalMoves = this.moveBuffers[board.getPly()];
+        final int numberOfLegalMoves = board.generateLegalMoves(legalMoves, 0);
+        for (int i = 0; i < numberOfLegalMoves; ++i) {
+            final int move = legalMoves[i];
+            board.makeMove(move);
+            final long currentValue = max(board, depth - 1);
+            board.unmakeMove();
+            if (this.cancellationToken.isCancelled()) {
+                return currentValue;
+            }
+            if (currentValue < lowestDetectedValue) {
+                lowestDetectedValue = currentValue;
             }
         }
-        return lowestDetectedValue;
+        //Checkmate or stalemate
+        return numberOfLegalMoves > 0 ? lowestDetectedValue : this.positionEvaluator.evaluate(board, depth);
     }
 
-    public long max(final Board board, int depth) {
+    public long max(final SearchBoard board, int depth) {
 
         //If we are on the leaf level of the tree we can evaluate the current position
-        if (depth == 0 || isGameOver(board)) {
-            return this.boardEvaluator.evaluate(board, depth);
+        if (depth == 0 || this.cancellationToken.isCancelled() || board.isInsufficientMaterial()) {
+            return this.positionEvaluator.evaluate(board, depth);
         }
 
-        long highestDetectedValue = Integer.MIN_VALUE;
-        Collection<Move> legalMoves = board.getCurrentPlayer().getLegalMoves();
-        for (final Move move : legalMoves) {
-            final MoveTransition moveTransition = board.getCurrentPlayer().makeMove(move);
-            if (moveTransition.getMoveStatus().isDone()) {
-                final long currentValue = min(moveTransition.getTransitedBoard(), depth - 1);
-                if (currentValue > highestDetectedValue) {
-                    highestDetectedValue = currentValue;
-                }
+        long highestDetectedValue = Long.MIN_VALUE;
+        final int[] legalMoves = this.moveBuffers[board.getPly()];
+        final int numberOfLegalMoves = board.generateLegalMoves(legalMoves, 0);
+        for (int i = 0; i < numberOfLegalMoves; ++i) {
+            final int move = legalMoves[i];
+            board.makeMove(move);
+            final long currentValue = min(board, depth - 1);
+            board.unmakeMove();
+            if (this.cancellationToken.isCancelled()) {
+                return currentValue;
+            }
+            if (currentValue > highestDetectedValue) {
+                highestDetectedValue = currentValue;
             }
         }
-        return highestDetectedValue;
-    }
-
-    private static boolean isGameOver(final Board board) {
-        return board.getCurrentPlayer().isCheckMate()
-                || board.getCurrentPlayer().isInStalemate()
-                || board.isInsufficientMaterial();
+        return numberOfLegalMoves > 0 ? highestDetectedValue : this.positionEvaluator.evaluate(board, depth);
     }
 
     @Override
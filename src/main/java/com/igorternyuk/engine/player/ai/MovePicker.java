@@ -0,0 +1,219 @@
+package com.igorternyuk.engine.player.ai;
+
+import com.igorternyuk.engine.board.BoardUtils;
+import com.igorternyuk.engine.board.SearchBoard;
+import com.igorternyuk.engine.moves.SearchMove;
+
+/**
+ * Hands out the legal moves of a node one at a time: the hash move, the captures by MVV-LVA, the killers, the counter
+ * move, the quiet moves by history score and last the captures that lose material by static exchange evaluation. A
+ * stage is generated only when the previous one runs out, so a node that cuts off on the hash move generates no moves
+ * at all and one that cuts off on a capture never generates its quiet moves. The hash move is checked against the pins
+ * and checks the board finds once for the node and shares with the generated stages. Within a stage the best remaining
+ * move is selected on each call instead of sorting the whole stage up front. The search keeps one picker per ply and
+ * resets it for every node, so its move and score buffers are allocated once per search instead of once per node. In
+ * quiescence nodes the picker stops after the captures that do not lose material, or hands out the evasions alone when
+ * the side to move is in check.
+ */
+public final class MovePicker {
+    public static final int[] NO_KILLERS = new int[0];
+
+    private enum Stage {
+        HASH_MOVE,
+        GENERATE_CAPTURES,
+        CAPTURES,
+        KILLERS,
+        COUNTER_MOVE,
+        QUIET_MOVES,
+        BAD_CAPTURES,
+        EVASIONS,
+        DONE
+    }
+
+    private final int[] moves = new int[SearchBoard.MAX_MOVES];
+    private final int[] scores = new int[SearchBoard.MAX_MOVES];
+    //Captures put off until after the quiet moves
+    private final int[] badCaptures = new int[SearchBoard.MAX_MOVES];
+    private SearchBoard board;
+    //As the transposition table keeps it, decoded once the picker gets to it
+    private int encodedHashMove;
+    private int hashMove;
+    private int[] killers;
+    //The quiet move that refuted the previous move last time, NO_MOVE if none
+    private int counterMove;
+    //Indexed by from and destination square, null orders quiet moves statically
+    private int[][] history;
+    private Stage stage;
+    private boolean isQuiescence;
+    private int numberOfMoves;
+    private int nextIndex;
+    private int nextKiller;
+    private int numberOfBadCaptures;
+    private int nextBadCapture;
+
+    public MovePicker() {
+        this.stage = Stage.DONE;
+    }
+
+    public MovePicker(final SearchBoard board, final int hashMove, final int[] killers, final int counterMove,
+                      final int[][] history) {
+        reset(board, hashMove, killers, counterMove, history);
+    }
+
+    //Prepares the picker for the node the board is in now
+    public void reset(final SearchBoard board, final int hashMove, final int[] killers, final int counterMove,
+                      final int[][] history) {
+        this.board = board;
+        this.encodedHashMove = hashMove;
+        this.hashMove = SearchMove.NO_MOVE;
+        this.killers = killers;
+        this.counterMove = counterMove;
+        this.history = history;
+        this.stage = Stage.HASH_MOVE;
+        this.isQuiescence = false;
+        this.numberOfMoves = 0;
+        this.nextIndex = 0;
+        this.nextKiller = 0;
+        this.numberOfBadCaptures = 0;
+        this.nextBadCapture = 0;
+    }
+
+    public void resetForQuiescence(final SearchBoard board) {
+        reset(board, TranspositionTable.NO_MOVE, NO_KILLERS, SearchMove.NO_MOVE, null);
+        this.isQuiescence = true;
+        if (board.isInCheck()) {
+            startStage(Stage.EVASIONS, board.generateEvasions(this.moves, 0));
+        }
+    }
+
+    //The next legal move, SearchMove.NO_MOVE once every move has been returned
+    public int next() {
+        while (true) {
+            switch (this.stage) {
+                case HASH_MOVE:
+                    this.stage = Stage.GENERATE_CAPTURES;
+                    this.hashMove = TranspositionTable.decodeMove(this.board, this.encodedHashMove);
+                    if (this.hashMove != SearchMove.NO_MOVE) {
+                        return this.hashMove;
+                    }
+                    break;
+                case GENERATE_CAPTURES:
+                    //The hash move is generated again among them, selectBest skips it
+                    startStage(Stage.CAPTURES, this.board.generateCaptures(this.moves, 0));
+                    break;
+                case CAPTURES:
+                    final int capture = selectBest();
+                    if (capture == SearchMove.NO_MOVE) {
+                        this.stage = this.isQuiescence ? Stage.DONE : Stage.KILLERS;
+                    } else if (isLosingCapture(capture)) {
+                        this.badCaptures[this.numberOfBadCaptures++] = capture;
+                    } else {
+                        return capture;
+                    }
+                    break;
+                case KILLERS:
+                    while (this.nextKiller < this.killers.length) {
+                        final int killer = this.killers[this.nextKiller++];
+                        if (isPlayableQuietMove(killer)) {
+                            return killer;
+                        }
+                    }
+                    this.stage = Stage.COUNTER_MOVE;
+                    break;
+                case COUNTER_MOVE:
+                    startStage(Stage.QUIET_MOVES, this.board.generateQuietMoves(this.moves, 0));
+                    if (isPlayableQuietMove(this.counterMove) && !isKiller(this.counterMove)) {
+                        return this.counterMove;
+                    }
+                    break;
+                case QUIET_MOVES:
+                case EVASIONS:
+                    final int move = selectBest();
+                    if (move != SearchMove.NO_MOVE) {
+                        return move;
+                    }
+                    this.stage = this.stage == Stage.QUIET_MOVES ? Stage.BAD_CAPTURES : Stage.DONE;
+                    break;
+                case BAD_CAPTURES:
+                    if (this.nextBadCapture < this.numberOfBadCaptures) {
+                        return this.badCaptures[this.nextBadCapture++];
+                    }
+                    this.stage = Stage.DONE;
+                    break;
+                default:
+                    return SearchMove.NO_MOVE;
+            }
+        }
+    }
+
+    //Writes everything not returned yet in picking order from the given index on and returns the index behind the
+    //last one, for handing the rest of a node to other threads
+    public int remainingMoves(final int[] moves, final int start) {
+        int end = start;
+        for (int move = next(); move != SearchMove.NO_MOVE; move = next()) {
+            moves[end++] = move;
+        }
+        return end;
+    }
+
+    private void startStage(final Stage stage, final int numberOfMoves) {
+        this.stage = stage;
+        this.numberOfMoves = numberOfMoves;
+        for (int i = 0; i < numberOfMoves; ++i) {
+            this.scores[i] = score(this.moves[i]);
+        }
+        this.nextIndex = 0;
+    }
+
+    private int score(final int move) {
+        if (SearchMove.isCapturingMove(move) || SearchMove.isPawnPromotionMove(move) || this.history == null) {
+            return SearchMove.isCastlingMove(move) ? Integer.MAX_VALUE : BoardUtils.mvvlva(move);
+        }
+        return this.history[SearchMove.getFrom(move)][SearchMove.getTo(move)];
+    }
+
+    //Selection sort one step at a time, moves already returned by an earlier stage are skipped
+    private int selectBest() {
+        while (this.nextIndex < this.numberOfMoves) {
+            int bestIndex = this.nextIndex;
+            for (int i = this.nextIndex + 1; i < this.numberOfMoves; ++i) {
+                if (this.scores[i] > this.scores[bestIndex]) {
+                    bestIndex = i;
+                }
+            }
+            final int move = this.moves[bestIndex];
+            this.moves[bestIndex] = this.moves[this.nextIndex];
+            this.scores[bestIndex] = this.scores[this.nextIndex];
+            ++this.nextIndex;
+            if (move != this.hashMove && !(this.stage == Stage.QUIET_MOVES &&
+                    (isKiller(move) || move == this.counterMove))) {
+                return move;
+            }
+        }
+        return SearchMove.NO_MOVE;
+    }
+
+    private boolean isLosingCapture(final int move) {
+        //Taking a piece worth at least the capturing one cannot lose material whatever the recaptures
+        if (SearchMove.isCapturingMove(move) && !SearchMove.isPawnPromotionMove(move) &&
+                SearchMove.getCapturedPieceType(move).getValue() >= SearchMove.getMovedPieceType(move).getValue()) {
+            return false;
+        }
+        return this.board.evaluateStaticExchange(move) < 0;
+    }
+
+    private boolean isKiller(final int move) {
+        for (final int killer : this.killers) {
+            if (move == killer) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //Killers and counter moves come from other nodes, so they are checked against this one
+    private boolean isPlayableQuietMove(final int move) {
+        return move != SearchMove.NO_MOVE && !SearchMove.isCapturingMove(move) &&
+                !SearchMove.isPawnPromotionMove(move) && move != this.hashMove && this.board.isLegalMove(move);
+    }
+}
@@ -7,5 +7,10 @@ import com.igorternyuk.engine.moves.Move;
  * Created by igor on 06.12.18.
  */
 public interface MoveStrategy {
-    Move execute(Board board);
+    //Implementations must poll the token at node granularity and return their best move so far once it is cancelled
+    Move execute(Board board, CancellationToken cancellationToken);
+
+    default Move execute(Board board) {
+        return execute(board, new CancellationToken());
+    }
 }
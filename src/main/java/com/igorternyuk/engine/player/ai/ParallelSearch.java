@@ -0,0 +1,244 @@
+package com.igorternyuk.engine.player.ai;
+
+import com.igorternyuk.engine.board.SearchBoard;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The fork/join side of AlphaBeta: hands the root moves or the young brothers of a node over to the pool and keeps
+ * the workers that search them. A worker is an AlphaBeta of its own with its own board and move ordering tables,
+ * it searches the subtree of its task serially or, splitting by YBWC, splits it further through this class.
+ */
+final class ParallelSearch {
+    private final ForkJoinPool forkJoinPool;
+    private final SplitMode splitMode;
+    private final TimeControl timeControl;
+    private final TranspositionTable transpositionTable;
+    private final SearchOptions searchOptions;
+    //Workers that are not searching anything, kept by each thread for the tasks it runs. A worker keeps its tables
+    //and its board from one task to the next, so a task allocates neither
+    private final ThreadLocal<ArrayDeque<AlphaBeta>> idleWorkers = ThreadLocal.withInitial(ArrayDeque::new);
+    //Counts the searches started, a worker forgets what it learned in an earlier one. Written before any task of
+    //the search is handed to the pool
+    private long searchId;
+
+    ParallelSearch(final ForkJoinPool forkJoinPool, final SplitMode splitMode, final TimeControl timeControl,
+                   final TranspositionTable transpositionTable, final SearchOptions searchOptions) {
+        this.forkJoinPool = forkJoinPool;
+        this.splitMode = splitMode;
+        this.timeControl = timeControl;
+        this.transpositionTable = transpositionTable;
+        this.searchOptions = searchOptions;
+    }
+
+    void newSearch() {
+        ++this.searchId;
+    }
+
+    boolean isSplittingInternalNodes() {
+        return this.splitMode.isSplittingInternalNodes();
+    }
+
+    //The first move has set the bound, the others are searched by the pool. The tasks copy the root position from
+    //the board, which stays untouched until every one of them is joined
+    AlphaBeta.ScoredMove searchRemainingRootMoves(final AlphaBeta owner, final SearchBoard searchBoard,
+                                                  final List<Integer> moves, final int movesSearched,
+                                                  final int numMoves, final int searchDepth, final long alpha,
+                                                  final long beta, final AlphaBeta.ScoredMove firstMove) {
+        final long candidateMoveStartTime = System.nanoTime();
+        final boolean isWhiteToMove = searchBoard.getSideToMove().isWhite();
+        final AtomicLong sharedBound = new AtomicLong(firstMove.getEvaluation().GetScore());
+        final List<RootMoveTask> tasks = new ArrayList<>(moves.size());
+        for (final int move : moves) {
+            final RootMoveTask task = new RootMoveTask(owner, searchBoard, move, searchDepth, alpha, beta,
+                    isWhiteToMove, sharedBound);
+            tasks.add(task);
+            this.forkJoinPool.execute(task);
+        }
+
+        AlphaBeta.ScoredMove best = firstMove;
+        int moveCounter = movesSearched;
+        for (final RootMoveTask task : tasks) {
+            task.join();
+            ++moveCounter;
+            owner.addStatistics(task.getStatistics());
+            if (task.getStatistics().isSearchStopped()) {
+                owner.stopSearch();
+            }
+            if (owner.isSearchStopped()) {
+                continue;
+            }
+            final AlphaBeta.Evaluation currEval = task.getRawResult();
+            //A score that did not beat the bound the task started with is only an upper (lower) bound
+            if (isWhiteToMove
+                    ? currEval.GetScore() > task.getInitialBound() &&
+                    currEval.GetScore() > best.getEvaluation().GetScore()
+                    : currEval.GetScore() < task.getInitialBound() &&
+                    currEval.GetScore() < best.getEvaluation().GetScore()) {
+                best = new AlphaBeta.ScoredMove(task.getMove(), currEval);
+            }
+            owner.reportRootMove(task.getMove(), moveCounter, numMoves, searchDepth, currEval,
+                    candidateMoveStartTime);
+        }
+        return best;
+    }
+
+    //Called once the eldest brother has been searched, the young brothers from start to end may now be stolen by
+    //idle workers
+    SplitPoint searchYoungBrothers(final AlphaBeta owner, final SearchBoard board, final int[] moves,
+                                   final int start, final int end, final int depth, final long alpha,
+                                   final long beta, final boolean isMaxNode) {
+        final SplitPoint splitPoint = new SplitPoint(owner.getSplitPoint(), isMaxNode, alpha, beta);
+        final List<YoungBrotherTask> tasks = new ArrayList<>(end - start);
+        for (int i = start; i < end; ++i) {
+            final YoungBrotherTask task = new YoungBrotherTask(owner, board, moves[i], depth, splitPoint);
+            tasks.add(task);
+            if (ForkJoinTask.inForkJoinPool()) {
+                task.fork();
+            } else {
+                this.forkJoinPool.execute(task);
+            }
+        }
+        //Joining the latest fork first lets the thread pop its own tasks back instead of waiting for thieves
+        for (int i = tasks.size() - 1; i >= 0; --i) {
+            final YoungBrotherTask task = tasks.get(i);
+            task.join();
+            owner.addStatistics(task.getStatistics());
+            //Workers aborted by a cutoff of this split point are expected, any other stop ends the search
+            if (task.getStatistics().isSearchStopped() && !splitPoint.isCutOff()) {
+                owner.stopSearch();
+            }
+        }
+        return splitPoint;
+    }
+
+    //A task takes an idle worker of the thread it runs on, or creates one if all of them are busy further up the
+    //stack of the thread. Workers of YBWC split further, root move workers search their subtree serially
+    private AlphaBeta checkOutWorker(final AlphaBeta owner, final SearchBoard board, final SplitPoint splitPoint) {
+        final ArrayDeque<AlphaBeta> idleWorkers = this.idleWorkers.get();
+        final AlphaBeta worker = idleWorkers.isEmpty()
+                ? new AlphaBeta(this.timeControl, this.transpositionTable, AlphaBeta.FORK_JOIN_WORKER,
+                this.searchOptions, isSplittingInternalNodes() ? this : null)
+                : idleWorkers.pop();
+        worker.startTask(this.searchId, owner, board, splitPoint);
+        return worker;
+    }
+
+    private void checkInWorker(final AlphaBeta worker) {
+        worker.finishTask();
+        this.idleWorkers.get().push(worker);
+    }
+
+    //Root moves of the fork/join mode, each one is searched by a worker on its own board within the window of the
+    //iteration, narrowed by the best score found so far
+    private final class RootMoveTask extends RecursiveTask<AlphaBeta.Evaluation> {
+        private final AlphaBeta owner;
+        private final SearchBoard board;
+        private final int move;
+        private final int searchDepth;
+        private final long alpha;
+        private final long beta;
+        private final boolean isWhiteToMove;
+        private final AtomicLong sharedBound;
+        private final WorkerStatistics statistics = new WorkerStatistics();
+        private long initialBound;
+
+        private RootMoveTask(final AlphaBeta owner, final SearchBoard board, final int move, final int searchDepth,
+                             final long alpha, final long beta, final boolean isWhiteToMove,
+                             final AtomicLong sharedBound) {
+            this.owner = owner;
+            this.board = board;
+            this.move = move;
+            this.searchDepth = searchDepth;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.isWhiteToMove = isWhiteToMove;
+            this.sharedBound = sharedBound;
+        }
+
+        @Override
+        protected AlphaBeta.Evaluation compute() {
+            final AlphaBeta worker = checkOutWorker(this.owner, this.board, null);
+            try {
+                final AlphaBeta.Evaluation evaluation;
+                if (this.isWhiteToMove) {
+                    this.initialBound = Math.max(this.sharedBound.get(), this.alpha);
+                    evaluation = worker.searchRootMove(worker.getWorkerBoard(), this.move, this.searchDepth,
+                            this.initialBound, this.beta);
+                } else {
+                    this.initialBound = Math.min(this.sharedBound.get(), this.beta);
+                    evaluation = worker.searchRootMove(worker.getWorkerBoard(), this.move, this.searchDepth,
+                            this.alpha, this.initialBound);
+                }
+                if (!worker.isSearchStopped()) {
+                    if (this.isWhiteToMove) {
+                        this.sharedBound.accumulateAndGet(evaluation.GetScore(), Math::max);
+                    } else {
+                        this.sharedBound.accumulateAndGet(evaluation.GetScore(), Math::min);
+                    }
+                }
+                return evaluation;
+            } finally {
+                this.statistics.collect(worker);
+                checkInWorker(worker);
+            }
+        }
+
+        int getMove() {
+            return this.move;
+        }
+
+        WorkerStatistics getStatistics() {
+            return this.statistics;
+        }
+
+        long getInitialBound() {
+            return this.initialBound;
+        }
+    }
+
+    private final class YoungBrotherTask extends RecursiveAction {
+        private final AlphaBeta owner;
+        private final SearchBoard board;
+        private final int move;
+        private final int depth;
+        private final SplitPoint splitPoint;
+        private final WorkerStatistics statistics = new WorkerStatistics();
+
+        private YoungBrotherTask(final AlphaBeta owner, final SearchBoard board, final int move, final int depth,
+                                 final SplitPoint splitPoint) {
+            this.owner = owner;
+            this.board = board;
+            this.move = move;
+            this.depth = depth;
+            this.splitPoint = splitPoint;
+        }
+
+        //The owner of the split point does not touch its board until every task is joined
+        @Override
+        protected void compute() {
+            if (this.splitPoint.isAborted()) {
+                this.statistics.markStopped();
+                return;
+            }
+            final AlphaBeta worker = checkOutWorker(this.owner, this.board, this.splitPoint);
+            try {
+                worker.searchYoungBrother(this.move, this.depth);
+            } finally {
+                this.statistics.collect(worker);
+                checkInWorker(worker);
+            }
+        }
+
+        WorkerStatistics getStatistics() {
+            return this.statistics;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.igorternyuk.engine.player.ai;
+
+import com.igorternyuk.engine.board.SearchBoard;
+
+public interface PositionEvaluator {
+    long evaluate(SearchBoard board, int depth);
+}
@@ -0,0 +1,31 @@
+package com.igorternyuk.engine.player.ai;
+
+import com.google.common.collect.ComparisonChain;
+import com.google.common.collect.Ordering;
+import com.google.common.primitives.Ints;
+import com.igorternyuk.engine.board.BoardUtils;
+import com.igorternyuk.engine.board.SearchBoard;
+import com.igorternyuk.engine.moves.SearchMove;
+
+import java.util.Comparator;
+import java.util.List;
+
+public enum SearchMoveSorter {
+    STANDARD {
+        @Override
+        public List<Integer> sort(final SearchBoard board, int[] moves) {
+            return Ordering.from((Comparator<Integer>) (first, second) -> ComparisonChain.start()
+                    .compareTrueFirst(SearchMove.isCastlingMove(first), SearchMove.isCastlingMove(second))
+                    .compareFalseFirst(isLosingCapture(board, first), isLosingCapture(board, second))
+                    .compare(BoardUtils.mvvlva(second), BoardUtils.mvvlva(first))
+                    .result()).immutableSortedCopy(Ints.asList(moves));
+        }
+    };
+
+    public abstract List<Integer> sort(final SearchBoard board, final int[] moves);
+
+    //Captures that lose material once every recapture is played out go behind the quiet moves
+    private static boolean isLosingCapture(final SearchBoard board, final int move) {
+        return SearchMove.isCapturingMove(move) && board.evaluateStaticExchange(move) < 0;
+    }
+}
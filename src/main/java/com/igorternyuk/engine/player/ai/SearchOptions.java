@@ -0,0 +1,70 @@
+package com.igorternyuk.engine.player.ai;
+
+import com.igorternyuk.engine.pieces.PieceType;
+
+/**
+ * Optional refinements of the AlphaBeta search, all of them on by default. Turning one off gives the plain search
+ * it refines, for tests and benchmarks to compare with.
+ */
+public final class SearchOptions {
+    //An aspiration window this wide is never narrower than the full window
+    public static final long FULL_WINDOW = Long.MAX_VALUE;
+    public static final SearchOptions DEFAULT = new SearchOptions(true,
+            StandardPositionEvaluator.getMaterialScore(PieceType.PAWN) / 4, true, true);
+
+    private final boolean isPrincipalVariationSearch;
+    private final long aspirationWindow;
+    private final boolean isNullMovePruning;
+    private final boolean isNullMoveVerification;
+
+    private SearchOptions(final boolean isPrincipalVariationSearch, final long aspirationWindow,
+                          final boolean isNullMovePruning, final boolean isNullMoveVerification) {
+        this.isPrincipalVariationSearch = isPrincipalVariationSearch;
+        this.aspirationWindow = aspirationWindow;
+        this.isNullMovePruning = isNullMovePruning;
+        this.isNullMoveVerification = isNullMoveVerification;
+    }
+
+    public SearchOptions withoutPrincipalVariationSearch() {
+        return new SearchOptions(false, this.aspirationWindow, this.isNullMovePruning, this.isNullMoveVerification);
+    }
+
+    //How far the first window of an iteration reaches on either side of the previous score
+    public SearchOptions withAspirationWindow(final long aspirationWindow) {
+        if (aspirationWindow <= 0) {
+            throw new RuntimeException("The aspiration window must not be empty: " + aspirationWindow);
+        }
+        return new SearchOptions(this.isPrincipalVariationSearch, aspirationWindow, this.isNullMovePruning,
+                this.isNullMoveVerification);
+    }
+
+    public SearchOptions withoutAspirationWindows() {
+        return withAspirationWindow(FULL_WINDOW);
+    }
+
+    public SearchOptions withoutNullMovePruning() {
+        return new SearchOptions(this.isPrincipalVariationSearch, this.aspirationWindow, false, false);
+    }
+
+    //Null move cutoffs of deep nodes are taken without searching the node itself again at the reduced depth
+    public SearchOptions withoutNullMoveVerification() {
+        return new SearchOptions(this.isPrincipalVariationSearch, this.aspirationWindow, this.isNullMovePruning,
+                false);
+    }
+
+    public boolean isPrincipalVariationSearch() {
+        return this.isPrincipalVariationSearch;
+    }
+
+    public long getAspirationWindow() {
+        return this.aspirationWindow;
+    }
+
+    public boolean isNullMovePruning() {
+        return this.isNullMovePruning;
+    }
+
+    public boolean isNullMoveVerification() {
+        return this.isNullMoveVerification;
+    }
+}
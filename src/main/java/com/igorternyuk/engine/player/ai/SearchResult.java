@@ -0,0 +1,51 @@
+package com.igorternyuk.engine.player.ai;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.igorternyuk.engine.moves.Move;
+
+import java.util.List;
+
+/**
+ * Outcome of the last completed iteration of a search: the move to play, its white-positive score and the
+ * principal variation that starts with it, converted to moves of the immutable
+ * {@link com.igorternyuk.engine.board.Board}.
+ */
+public final class SearchResult {
+    public static final SearchResult NONE = new SearchResult(Move.MoveFactory.NULL_MOVE, 0, 0, ImmutableList.of());
+
+    private final Move bestMove;
+    private final long score;
+    private final int depth;
+    private final List<Move> principalVariation;
+
+    public SearchResult(final Move bestMove, final long score, final int depth, final List<Move> principalVariation) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.principalVariation = ImmutableList.copyOf(principalVariation);
+    }
+
+    public Move getBestMove() {
+        return this.bestMove;
+    }
+
+    public long getScore() {
+        return this.score;
+    }
+
+    //Zero if not even the first iteration completed
+    public int getDepth() {
+        return this.depth;
+    }
+
+    public List<Move> getPrincipalVariation() {
+        return this.principalVariation;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("depth %d score %d pv %s", this.depth, this.score,
+                Joiner.on(' ').join(this.principalVariation));
+    }
+}
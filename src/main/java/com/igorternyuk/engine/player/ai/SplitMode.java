@@ -0,0 +1,23 @@
+package com.igorternyuk.engine.player.ai;
+
+/**
+ * Where a fork/join AlphaBeta hands moves over to other threads.
+ */
+public enum SplitMode {
+    //Only the root moves after the first one are searched in parallel
+    ROOT_MOVES {
+        @Override
+        public boolean isSplittingInternalNodes() {
+            return false;
+        }
+    },
+    //Young Brothers Wait Concept: any node splits once its eldest child has been searched
+    YOUNG_BROTHERS_WAIT {
+        @Override
+        public boolean isSplittingInternalNodes() {
+            return true;
+        }
+    };
+
+    public abstract boolean isSplittingInternalNodes();
+}
@@ -0,0 +1,75 @@
+package com.igorternyuk.engine.player.ai;
+
+import com.igorternyuk.engine.moves.SearchMove;
+
+import java.util.Arrays;
+
+/**
+ * Shared state of a node whose young brothers are searched in parallel: the window the workers search in, which
+ * narrows as their scores come in, and the best move found so far with its line.
+ */
+final class SplitPoint {
+    private final SplitPoint parent;
+    private final boolean isMaxNode;
+    private volatile long alpha;
+    private volatile long beta;
+    private volatile boolean isCutOff;
+    private long bestScore;
+    private int bestMove;
+    //The principal variation below the best move
+    private int[] bestLine;
+
+    SplitPoint(final SplitPoint parent, final boolean isMaxNode, final long alpha, final long beta) {
+        this.parent = parent;
+        this.isMaxNode = isMaxNode;
+        this.alpha = alpha;
+        this.beta = beta;
+        this.isCutOff = false;
+        this.bestMove = SearchMove.NO_MOVE;
+    }
+
+    //A cutoff anywhere above makes the whole subtree useless
+    boolean isAborted() {
+        return this.isCutOff || (this.parent != null && this.parent.isAborted());
+    }
+
+    boolean isCutOff() {
+        return this.isCutOff;
+    }
+
+    long getAlpha() {
+        return this.alpha;
+    }
+
+    long getBeta() {
+        return this.beta;
+    }
+
+    synchronized void update(final int move, final long score, final int[] line, final int lineLength) {
+        if (this.bestMove == SearchMove.NO_MOVE || (this.isMaxNode ? score > this.bestScore
+                : score < this.bestScore)) {
+            this.bestScore = score;
+            this.bestMove = move;
+            this.bestLine = line == null ? new int[0] : Arrays.copyOf(line, lineLength);
+        }
+        if (this.isMaxNode) {
+            this.alpha = Math.max(this.alpha, score);
+            this.isCutOff |= score >= this.beta;
+        } else {
+            this.beta = Math.min(this.beta, score);
+            this.isCutOff |= score <= this.alpha;
+        }
+    }
+
+    synchronized long getBestScore() {
+        return this.bestScore;
+    }
+
+    synchronized int getBestMove() {
+        return this.bestMove;
+    }
+
+    synchronized int[] getBestLine() {
+        return this.bestLine;
+    }
+}
@@ -0,0 +1,246 @@
+package com.igorternyuk.engine.player.ai;
+
+import com.igorternyuk.engine.Alliance;
+import com.igorternyuk.engine.board.Attacks;
+import com.igorternyuk.engine.board.BitBoard;
+import com.igorternyuk.engine.board.BoardUtils;
+import com.igorternyuk.engine.board.SearchBoard;
+import com.igorternyuk.engine.pieces.PieceSquareTables;
+import com.igorternyuk.engine.pieces.PieceType;
+
+/**
+ * Counterpart of {@link StandardBoardEvaluator} for {@link SearchBoard}. It scores the same terms with the same
+ * weights (material with piece-square tables and the bonus for moved pieces, castling, mobility, threats of a
+ * piece on a more valuable one, check, pawn structure, bishops, rooks and king safety) straight from the
+ * bitboards without generating {@code Move} objects. Where the board needs its move lists the terms are
+ * approximated: mobility counts the squares the pieces attack, castling capability is the castling rights and
+ * king safety is the pawn shield only. A mate scores by its depth as the search needs.
+ * The score is positive when white is better.
+ */
+public final class StandardPositionEvaluator implements PositionEvaluator {
+    public static final long CHECKMATE_SCORE = 100000000;
+    public static final long MATE_DEPTH_BONUS = 10000000;
+    private static final long MATERIAL_MULTIPLIER = 200;
+    private static final long CHECK_BONUS = 30;
+    private static final long CASTLE_BONUS = 100;
+    private static final long CASTLE_CAPABLE_BONUS = 50;
+    private static final long MOBILITY_MULTIPLIER = 2;
+    private static final long ATTACK_MULTIPLIER = 4;
+    private static final int MOVED_PIECE_BONUS = 20;
+    //Like Board.isEndGamePhase() the king takes its endgame squares once no more than two pieces are left
+    private static final int MAX_END_GAME_PIECES = 2;
+    private static final int DOUBLED_PAWN_PENALTY = -50;
+    private static final int ISOLATED_PAWN_PENALTY = -30;
+    private static final int BISHOP_PAIR_BONUS = 80;
+    private static final int OPEN_FILE_ROOK_BONUS = 25;
+    private static final int KING_CASTLED_SCORE = 80;
+    private static final long FILE_A = 0x0101010101010101L;
+    private static final long LIGHT_SQUARES = 0xAA55AA55AA55AA55L;
+    //values() clones its array on every call, which would be an allocation per evaluated position
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+
+    @Override
+    public long evaluate(final SearchBoard board, final int depth) {
+        final boolean isInCheck = board.isInCheck();
+        if (!board.hasLegalMoves()) {
+            if (isInCheck) {
+                //Like the board evaluator the position still counts so that equally fast mates can be told apart
+                final long mateScore = CHECKMATE_SCORE + depth * MATE_DEPTH_BONUS;
+                return scorePosition(board, 0) + (board.getSideToMove().isWhite() ? -mateScore : mateScore);
+            }
+            return 0;
+        }
+        if (board.isInsufficientMaterial()) {
+            return 0;
+        }
+        return scorePosition(board, isInCheck ? 2 * CHECK_BONUS : 0);
+    }
+
+    //What a piece is worth in the units of the score, without its piece-square bonus
+    public static long getMaterialScore(final PieceType pieceType) {
+        return MATERIAL_MULTIPLIER * pieceType.getValue();
+    }
+
+    //The position added to a mate can take it below CHECKMATE_SCORE, but never by half a ply of mate bonus
+    public static boolean isMateScore(final long score) {
+        return Math.abs(score) >= CHECKMATE_SCORE - MATE_DEPTH_BONUS / 2;
+    }
+
+    //The same mate seen from a node with the given number of plies more depth left. A mate beyond the depth left
+    //stays a mate, the slowest one a score can tell
+    public static long shiftMateScore(final long score, final int plies) {
+        if (!isMateScore(score)) {
+            return score;
+        }
+        final long magnitude = Math.abs(score);
+        final long mateDepth = (magnitude - CHECKMATE_SCORE + MATE_DEPTH_BONUS / 2) / MATE_DEPTH_BONUS;
+        final long shiftedMagnitude = magnitude + (Math.max(0, mateDepth + plies) - mateDepth) * MATE_DEPTH_BONUS;
+        return score > 0 ? shiftedMagnitude : -shiftedMagnitude;
+    }
+
+    private static long scorePosition(final SearchBoard board, final long checkBonus) {
+        final boolean isEndGame = isEndGame(board);
+        final long whiteScore = scoreAlliance(board, Alliance.WHITE, isEndGame) +
+                (board.getSideToMove().isBlack() ? checkBonus : 0);
+        final long blackScore = scoreAlliance(board, Alliance.BLACK, isEndGame) +
+                (board.getSideToMove().isWhite() ? checkBonus : 0);
+        return whiteScore - blackScore;
+    }
+
+    private static long scoreAlliance(final SearchBoard board, final Alliance alliance, final boolean isEndGame) {
+        return MATERIAL_MULTIPLIER * materialValue(board, alliance, isEndGame)
+                + (board.canCastle(alliance) ? CASTLE_CAPABLE_BONUS : 0)
+                + (board.isCastled(alliance) ? CASTLE_BONUS : 0)
+                + mobility(board, alliance)
+                + 150 * threats(board, alliance, isEndGame)
+                + 2 * pawnStructureScore(board, alliance)
+                + 10 * bishopsScore(board, alliance)
+                + 3 * rooksScore(board, alliance)
+                + 50 * kingSafetyScore(board, alliance);
+    }
+
+    private static boolean isEndGame(final SearchBoard board) {
+        int pieces = 0;
+        for (final Alliance alliance : Alliance.values()) {
+            pieces += Long.bitCount(board.getPieces(alliance) & ~board.getPieces(alliance, PieceType.PAWN) &
+                    ~board.getPieces(alliance, PieceType.KING));
+        }
+        return pieces <= MAX_END_GAME_PIECES;
+    }
+
+    private static long materialValue(final SearchBoard board, final Alliance alliance, final boolean isEndGame) {
+        long value = MOVED_PIECE_BONUS * Long.bitCount(board.getPieces(alliance) & board.getMovedPieces());
+        for (final PieceType pieceType : PIECE_TYPES) {
+            final int[] pieceSquareTable = getPieceSquareTable(pieceType, alliance, isEndGame);
+            long pieces = board.getPieces(alliance, pieceType);
+            while (pieces != BitBoard.EMPTY) {
+                value += pieceType.getValue() + pieceSquareTable[Long.numberOfTrailingZeros(pieces)];
+                pieces &= pieces - 1;
+            }
+        }
+        return value;
+    }
+
+    //Attacks of a piece on a more valuable one, both valued with their piece-square bonus as in the material
+    private static long threats(final SearchBoard board, final Alliance alliance, final boolean isEndGame) {
+        final Alliance opponent = SearchBoard.opponentOf(alliance);
+        final long opponentPieces = board.getPieces(opponent);
+        long threats = 0;
+        long pieces = board.getPieces(alliance);
+        while (pieces != BitBoard.EMPTY) {
+            final int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            final PieceType pieceType = board.getPieceType(square);
+            final int value = getPieceValue(pieceType, alliance, square, isEndGame);
+            long targets = opponentPieces & (pieceType.isPawn()
+                    ? Attacks.pawnAttacks(alliance, square)
+                    : Attacks.pieceAttacks(pieceType, square, board.getOccupancy()));
+            while (targets != BitBoard.EMPTY) {
+                final int target = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                if (value < getPieceValue(board.getPieceType(target), opponent, target, isEndGame)) {
+                    ++threats;
+                }
+            }
+        }
+        return threats * ATTACK_MULTIPLIER;
+    }
+
+    private static int getPieceValue(final PieceType pieceType, final Alliance alliance, final int square,
+                                     final boolean isEndGame) {
+        return pieceType.getValue() + getPieceSquareTable(pieceType, alliance, isEndGame)[square];
+    }
+
+    private static long mobility(final SearchBoard board, final Alliance alliance) {
+        final int opponentMobility = Math.max(1, board.countMobility(SearchBoard.opponentOf(alliance)));
+        return (long) (100.f * board.countMobility(alliance) / opponentMobility) * MOBILITY_MULTIPLIER;
+    }
+
+    private static int pawnStructureScore(final SearchBoard board, final Alliance alliance) {
+        final long pawns = board.getPieces(alliance, PieceType.PAWN);
+        int score = 0;
+        for (int file = 0; file < BoardUtils.BOARD_SIZE; ++file) {
+            final int pawnsOnFile = Long.bitCount(pawns & (FILE_A << file));
+            if (pawnsOnFile == 0) {
+                continue;
+            }
+            if (pawnsOnFile > 1) {
+                score += pawnsOnFile * DOUBLED_PAWN_PENALTY;
+            }
+            final long adjacentFiles = (file > 0 ? FILE_A << (file - 1) : BitBoard.EMPTY) |
+                    (file < BoardUtils.BOARD_SIZE - 1 ? FILE_A << (file + 1) : BitBoard.EMPTY);
+            if ((pawns & adjacentFiles) == BitBoard.EMPTY) {
+                score += pawnsOnFile * ISOLATED_PAWN_PENALTY;
+            }
+        }
+        return score;
+    }
+
+    private static int bishopsScore(final SearchBoard board, final Alliance alliance) {
+        final long bishops = board.getPieces(alliance, PieceType.BISHOP);
+        final long pawns = board.getPieces(alliance, PieceType.PAWN);
+        final boolean hasLightSquareBishop = (bishops & LIGHT_SQUARES) != BitBoard.EMPTY;
+        final boolean hasDarkSquareBishop = (bishops & ~LIGHT_SQUARES) != BitBoard.EMPTY;
+        int score = 0;
+        if (hasDarkSquareBishop) {
+            score += 5 * Long.bitCount(pawns & LIGHT_SQUARES);
+        }
+        if (hasLightSquareBishop) {
+            score += 5 * Long.bitCount(pawns & ~LIGHT_SQUARES);
+        }
+        if (hasLightSquareBishop && hasDarkSquareBishop) {
+            score += BISHOP_PAIR_BONUS;
+        }
+        return score;
+    }
+
+    private static int rooksScore(final SearchBoard board, final Alliance alliance) {
+        long rooks = board.getPieces(alliance, PieceType.ROOK);
+        int score = 0;
+        while (rooks != BitBoard.EMPTY) {
+            final int square = Long.numberOfTrailingZeros(rooks);
+            rooks &= rooks - 1;
+            if (Long.bitCount(board.getOccupancy() & (FILE_A << BitBoard.getFile(square))) == 1) {
+                score += OPEN_FILE_ROOK_BONUS;
+            }
+        }
+        return score;
+    }
+
+    private static int kingSafetyScore(final SearchBoard board, final Alliance alliance) {
+        final int kingSquare = board.getKingSquare(alliance);
+        final int kingX = BitBoard.getFile(kingSquare);
+        final int kingY = BitBoard.getRank(kingSquare);
+        final long pawns = board.getPieces(alliance, PieceType.PAWN);
+        final int directionY = alliance.getDirectionY();
+        int score = board.isCastled(alliance) ? KING_CASTLED_SCORE : 0;
+        for (int x = kingX - 1; x <= kingX + 1; ++x) {
+            for (int distance = 1; distance <= 2; ++distance) {
+                final int y = kingY + distance * directionY;
+                if (BoardUtils.isValidLocation(x, y) &&
+                        (pawns & BitBoard.getSquareMask(BitBoard.getSquare(x, y))) != BitBoard.EMPTY) {
+                    score += distance == 1 ? 20 : 10;
+                }
+            }
+        }
+        return score;
+    }
+
+    private static int[] getPieceSquareTable(final PieceType pieceType, final Alliance alliance,
+                                             final boolean isEndGame) {
+        switch (pieceType) {
+            case PAWN:
+                return alliance.isWhite() ? PieceSquareTables.WHITE_PAWN : PieceSquareTables.BLACK_PAWN;
+            case KNIGHT:
+                return alliance.isWhite() ? PieceSquareTables.WHITE_KNIGHT : PieceSquareTables.BLACK_KNIGHT;
+            case BISHOP:
+                return alliance.isWhite() ? PieceSquareTables.WHITE_BISHOP : PieceSquareTables.BLACK_BISHOP;
+            case ROOK:
+            case QUEEN:
+                return alliance.isWhite() ? PieceSquareTables.WHITE_ROOK : PieceSquareTables.BLACK_ROOK;
+            default:
+                //The board values both kings from the white tables as well
+                return isEndGame ? PieceSquareTables.WHITE_KING_ENDGAME : PieceSquareTables.WHITE_KING_MIDDLE_GAME;
+        }
+    }
+}
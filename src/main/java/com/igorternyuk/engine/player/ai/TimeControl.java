@@ -0,0 +1,88 @@
+package com.igorternyuk.engine.player.ai;
+
+import com.google.common.base.Ticker;
+
+/**
+ * Search budget for the iterative deepening driver. After the soft limit no new iteration is started, after the
+ * hard limit the running iteration is abandoned and the best move of the last completed one is played.
+ */
+public final class TimeControl {
+    public static final int MAX_SEARCH_DEPTH = 64;
+    public static final long UNLIMITED = Long.MAX_VALUE;
+    //Without a moves-to-go counter we assume the game lasts this many more moves
+    private static final int EXPECTED_MOVES_TO_GO = 30;
+    private static final long SAFETY_MARGIN_MILLIS = 50;
+    private static final long MIN_THINKING_TIME_MILLIS = 10;
+
+    private final int maxDepth;
+    private final long softLimitMillis;
+    private final long hardLimitMillis;
+    //The clock the limits are measured on
+    private final Ticker ticker;
+
+    private TimeControl(final int maxDepth, final long softLimitMillis, final long hardLimitMillis) {
+        this(maxDepth, softLimitMillis, hardLimitMillis, Ticker.systemTicker());
+    }
+
+    private TimeControl(final int maxDepth, final long softLimitMillis, final long hardLimitMillis,
+                        final Ticker ticker) {
+        this.maxDepth = maxDepth;
+        this.softLimitMillis = softLimitMillis;
+        this.hardLimitMillis = hardLimitMillis;
+        this.ticker = ticker;
+    }
+
+    public static TimeControl fixedDepth(final int depth) {
+        return new TimeControl(depth, UNLIMITED, UNLIMITED);
+    }
+
+    public static TimeControl moveTime(final long moveTimeMillis) {
+        final long hardLimit = Math.max(MIN_THINKING_TIME_MILLIS, moveTimeMillis - SAFETY_MARGIN_MILLIS);
+        //The next iteration usually takes several times longer than the previous ones together
+        return new TimeControl(MAX_SEARCH_DEPTH, hardLimit / 2, hardLimit);
+    }
+
+    public static TimeControl clock(final long remainingTimeMillis, final long incrementMillis) {
+        final long available = Math.max(MIN_THINKING_TIME_MILLIS, remainingTimeMillis - SAFETY_MARGIN_MILLIS);
+        final long target = Math.min(available, available / EXPECTED_MOVES_TO_GO + incrementMillis * 3 / 4);
+        final long hardLimit = Math.min(available, Math.max(target * 4, MIN_THINKING_TIME_MILLIS));
+        return new TimeControl(MAX_SEARCH_DEPTH, Math.max(target, MIN_THINKING_TIME_MILLIS), hardLimit);
+    }
+
+    public TimeControl withMaxDepth(final int depth) {
+        return new TimeControl(depth, this.softLimitMillis, this.hardLimitMillis, this.ticker);
+    }
+
+    //The same limits measured on another clock, so that tests do not depend on how fast the machine is
+    public TimeControl withTicker(final Ticker ticker) {
+        return new TimeControl(this.maxDepth, this.softLimitMillis, this.hardLimitMillis, ticker);
+    }
+
+    public int getMaxDepth() {
+        return this.maxDepth;
+    }
+
+    public long getSoftLimitMillis() {
+        return this.softLimitMillis;
+    }
+
+    public long getHardLimitMillis() {
+        return this.hardLimitMillis;
+    }
+
+    public Ticker getTicker() {
+        return this.ticker;
+    }
+
+    public boolean isTimeLimited() {
+        return this.hardLimitMillis != UNLIMITED;
+    }
+
+    @Override
+    public String toString() {
+        return isTimeLimited()
+                ? String.format("max depth %d soft limit %d ms hard limit %d ms", this.maxDepth,
+                this.softLimitMillis, this.hardLimitMillis)
+                : String.format("depth %d", this.maxDepth);
+    }
+}
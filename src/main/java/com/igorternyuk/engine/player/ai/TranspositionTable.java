@@ -0,0 +1,204 @@
+package com.igorternyuk.engine.player.ai;
+
+import com.igorternyuk.engine.board.SearchBoard;
+import com.igorternyuk.engine.moves.SearchMove;
+import com.igorternyuk.engine.pieces.PieceType;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size transposition table kept in a flat {@code long[]}. Every bucket holds two entries: a depth-preferred
+ * one and an always-replace one. An entry is two longs, {@code key ^ data} and {@code data}, so it is written
+ * without locks: if two threads tear an entry the XOR check fails on probe and the entry is treated as a miss.
+ * One table can therefore be shared by several searching threads.
+ *
+ * Data layout: bits 0-31 score, 32-39 depth, 40-41 bound, 42-56 move, 57-62 generation, 63 valid flag.
+ */
+public final class TranspositionTable {
+    public static final int DEFAULT_SIZE_IN_MEGABYTES = 16;
+    public static final long NO_ENTRY = 0L;
+    public static final int EXACT = 0;
+    public static final int LOWER_BOUND = 1;
+    public static final int UPPER_BOUND = 2;
+    public static final int NO_MOVE = 0;
+    private static final int LONGS_PER_ENTRY = 2;
+    private static final int ENTRIES_PER_BUCKET = 2;
+    private static final int LONGS_PER_BUCKET = LONGS_PER_ENTRY * ENTRIES_PER_BUCKET;
+    private static final int BYTES_PER_BUCKET = LONGS_PER_BUCKET * Long.BYTES;
+    private static final long MAX_BUCKETS = 1L << 28;
+    private static final int MAX_DEPTH = 0xFF;
+    private static final int DEPTH_SHIFT = 32;
+    private static final int BOUND_SHIFT = 40;
+    private static final int MOVE_SHIFT = 42;
+    private static final int GENERATION_SHIFT = 57;
+    private static final long MOVE_MASK = 0x7FFFL;
+    private static final int GENERATION_MASK = 0x3F;
+    private static final long VALID_FLAG = 1L << 63;
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+    //A mate score is stored as if its node had MAX_SEARCH_DEPTH plies left, which has to fit the 32 score bits
+    private static final long MAX_STORED_MATE_SCORE = StandardPositionEvaluator.CHECKMATE_SCORE +
+            TimeControl.MAX_SEARCH_DEPTH * StandardPositionEvaluator.MATE_DEPTH_BONUS;
+
+    static {
+        if (MAX_STORED_MATE_SCORE > Integer.MAX_VALUE) {
+            throw new RuntimeException("Mate scores up to " + MAX_STORED_MATE_SCORE +
+                    " do not fit a transposition table entry");
+        }
+    }
+
+    private final long[] table;
+    private final int bucketMask;
+    private volatile int generation;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+
+    public TranspositionTable() {
+        this(DEFAULT_SIZE_IN_MEGABYTES);
+    }
+
+    public TranspositionTable(final int sizeInMegabytes) {
+        if (sizeInMegabytes <= 0) {
+            throw new RuntimeException("Transposition table size must be positive: " + sizeInMegabytes + " MB");
+        }
+        final long requestedBuckets = (long) sizeInMegabytes * 1024 * 1024 / BYTES_PER_BUCKET;
+        final int numberOfBuckets = (int) Long.highestOneBit(Math.max(1, Math.min(requestedBuckets, MAX_BUCKETS)));
+        this.table = new long[numberOfBuckets * LONGS_PER_BUCKET];
+        this.bucketMask = numberOfBuckets - 1;
+        this.generation = 0;
+    }
+
+    public long probe(final long key) {
+        final int bucket = getBucketIndex(key);
+        boolean isBucketOccupied = false;
+        for (int index = bucket; index < bucket + LONGS_PER_BUCKET; index += LONGS_PER_ENTRY) {
+            final long data = this.table[index + 1];
+            if ((this.table[index] ^ data) == key && data != NO_ENTRY) {
+                this.hits.increment();
+                return data;
+            }
+            isBucketOccupied |= data != NO_ENTRY;
+        }
+        this.misses.increment();
+        if (isBucketOccupied) {
+            this.collisions.increment();
+        }
+        return NO_ENTRY;
+    }
+
+    public void store(final long key, final int depth, final long score, final int bound, final int move) {
+        final long data = pack(depth, score, bound, move);
+        final int bucket = getBucketIndex(key);
+        final long depthPreferredData = this.table[bucket + 1];
+        final boolean isSamePosition = (this.table[bucket] ^ depthPreferredData) == key;
+        if (depthPreferredData == NO_ENTRY || isSamePosition || depth >= getDepth(depthPreferredData) ||
+                getGeneration(depthPreferredData) != this.generation) {
+            write(bucket, key, data);
+        } else {
+            write(bucket + LONGS_PER_ENTRY, key, data);
+        }
+        this.stores.increment();
+    }
+
+    //Entries of the previous searches become the first candidates for replacement
+    public void newSearch() {
+        this.generation = (this.generation + 1) & GENERATION_MASK;
+    }
+
+    public void clear() {
+        for (int i = 0; i < this.table.length; ++i) {
+            this.table[i] = NO_ENTRY;
+        }
+        this.hits.reset();
+        this.misses.reset();
+        this.collisions.reset();
+        this.stores.reset();
+    }
+
+    public int getNumberOfEntries() {
+        return this.table.length / LONGS_PER_ENTRY;
+    }
+
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    public long getCollisions() {
+        return this.collisions.sum();
+    }
+
+    public long getStores() {
+        return this.stores.sum();
+    }
+
+    public static int getScore(final long data) {
+        return (int) data;
+    }
+
+    public static int getDepth(final long data) {
+        return (int) (data >>> DEPTH_SHIFT) & MAX_DEPTH;
+    }
+
+    public static int getBound(final long data) {
+        return (int) (data >>> BOUND_SHIFT) & 0x3;
+    }
+
+    public static int getMove(final long data) {
+        return (int) ((data >>> MOVE_SHIFT) & MOVE_MASK);
+    }
+
+    private static int getGeneration(final long data) {
+        return (int) (data >>> GENERATION_SHIFT) & GENERATION_MASK;
+    }
+
+    //The low 15 bits of a search move are its from square, destination square and promotion piece type
+    public static int encodeMove(final int move) {
+        return move & (int) MOVE_MASK;
+    }
+
+    public static boolean isSameMove(final int move, final int encodedMove) {
+        return encodedMove != NO_MOVE && encodeMove(move) == encodedMove;
+    }
+
+    //The hash move in this position, SearchMove.NO_MOVE if the encoded move is not legal in it
+    public static int decodeMove(final SearchBoard board, final int encodedMove) {
+        if (encodedMove == NO_MOVE) {
+            return SearchMove.NO_MOVE;
+        }
+        final int promotion = encodedMove >>> 12 & 0x7;
+        return board.findLegalMove(encodedMove & 0x3F, encodedMove >>> 6 & 0x3F,
+                promotion == 0 ? null : PIECE_TYPES[promotion - 1]);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TT entries: %d hits: %d misses: %d collisions: %d stores: %d",
+                getNumberOfEntries(), getHits(), getMisses(), getCollisions(), getStores());
+    }
+
+    private long pack(final int depth, final long score, final int bound, final int move) {
+        if (score != (int) score) {
+            throw new RuntimeException("Score " + score + " does not fit a transposition table entry");
+        }
+        return (score & 0xFFFFFFFFL)
+                | (long) Math.min(Math.max(depth, 0), MAX_DEPTH) << DEPTH_SHIFT
+                | (long) bound << BOUND_SHIFT
+                | (move & MOVE_MASK) << MOVE_SHIFT
+                | (long) this.generation << GENERATION_SHIFT
+                | VALID_FLAG;
+    }
+
+    private void write(final int index, final long key, final long data) {
+        this.table[index] = key ^ data;
+        this.table[index + 1] = data;
+    }
+
+    private int getBucketIndex(final long key) {
+        return ((int) key & this.bucketMask) * LONGS_PER_BUCKET;
+    }
+}
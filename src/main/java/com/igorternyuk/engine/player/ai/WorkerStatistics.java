@@ -0,0 +1,46 @@
+package com.igorternyuk.engine.player.ai;
+
+/**
+ * What the worker of a fork/join task counted, copied out before the worker goes back to the idle ones and starts
+ * on another task.
+ */
+final class WorkerStatistics {
+    private long nodesSearched;
+    private long boardsEvaluated;
+    private long cutsOffProduced;
+    private long quiescenceNodes;
+    private boolean isSearchStopped;
+
+    void collect(final AlphaBeta worker) {
+        this.nodesSearched = worker.getNodesSearched();
+        this.boardsEvaluated = worker.getBoardsEvaluated();
+        this.cutsOffProduced = worker.getCutsOffProduced();
+        this.quiescenceNodes = worker.getQuiescenceNodes();
+        this.isSearchStopped = worker.isSearchStopped();
+    }
+
+    //A task that finds its split point cut off before it starts does not take a worker at all
+    void markStopped() {
+        this.isSearchStopped = true;
+    }
+
+    long getNodesSearched() {
+        return this.nodesSearched;
+    }
+
+    long getBoardsEvaluated() {
+        return this.boardsEvaluated;
+    }
+
+    long getCutsOffProduced() {
+        return this.cutsOffProduced;
+    }
+
+    long getQuiescenceNodes() {
+        return this.quiescenceNodes;
+    }
+
+    boolean isSearchStopped() {
+        return this.isSearchStopped;
+    }
+}
@@ -13,7 +13,8 @@ import java.awt.*;
 public class GameSetup extends JDialog {
     private PlayerType whitePlayerType;
     private PlayerType blackPlayerType;
-    private JSpinner searchDepthSpinner;
+    private JSpinner moveTimeSpinner;
+    private JSpinner searchThreadsSpinner;
 
     GameSetup(final JFrame frame, final boolean modal) {
         super(frame, modal);
@@ -42,8 +43,10 @@ public class GameSetup extends JDialog {
         panel.add(blackComputerButton);
 
         panel.add(new JLabel("Search"));
-        this.searchDepthSpinner = addLabeledSpinner(panel, "Search Depth",
-                new SpinnerNumberModel(4, 0, 10, 1));
+        this.moveTimeSpinner = addLabeledSpinner(panel, "Seconds Per Move",
+                new SpinnerNumberModel(5, 1, 600, 1));
+        this.searchThreadsSpinner = addLabeledSpinner(panel, "Search Threads",
+                new SpinnerNumberModel(Runtime.getRuntime().availableProcessors(), 1, 64, 1));
 
         final JButton cancelButton = new JButton("Cancel");
         final JButton okButton = new JButton("OK");
@@ -79,8 +82,12 @@ public class GameSetup extends JDialog {
         return this.blackPlayerType;
     }
 
-    public int getSearchDepthValue() {
-        return (int) searchDepthSpinner.getValue();
+    public int getMoveTimeValue() {
+        return (int) moveTimeSpinner.getValue();
+    }
+
+    public int getSearchThreadsValue() {
+        return (int) searchThreadsSpinner.getValue();
     }
 
     void promptUser() {
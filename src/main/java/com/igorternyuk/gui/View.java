@@ -8,8 +8,10 @@ import com.igorternyuk.engine.moves.Move;
 import com.igorternyuk.engine.moves.MoveLog;
 import com.igorternyuk.engine.pieces.*;
 import com.igorternyuk.engine.player.Player;
-import com.igorternyuk.engine.player.ai.AlphaBeta;
+import com.igorternyuk.engine.player.ai.CancellationToken;
+import com.igorternyuk.engine.player.ai.LazySmp;
 import com.igorternyuk.engine.player.ai.MoveStrategy;
+import com.igorternyuk.engine.player.ai.TimeControl;
 
 import javax.swing.*;
 import java.awt.*;
@@ -62,6 +64,11 @@ public class View extends Observable {
     private boolean highlightLastMove = false;
     private boolean isAutoQueenEnabled = false;
     private Move computerMove;
+    private AIThinkTank aiThinkTank;
+    //Kept from one computer move to the next so its helper threads are not started anew for every move
+    private LazySmp aiStrategy;
+    private int aiMoveTimeSeconds;
+    private int aiSearchThreads;
 
     public enum PlayerType {
         HUMAN {
@@ -149,6 +156,7 @@ public class View extends Observable {
                 //Create AI thread
                 //execute AI work
                 AIThinkTank thinkTank = new AIThinkTank();
+                View.getInstance().aiThinkTank = thinkTank;
                 thinkTank.execute();
             }
             if (View.getInstance().getGameStatus().isGameOver()) {
@@ -158,6 +166,11 @@ public class View extends Observable {
     }
 
     private static class AIThinkTank extends SwingWorker<Move, String> {
+        private final CancellationToken cancellationToken = new CancellationToken();
+
+        void cancelSearch() {
+            this.cancellationToken.cancel();
+        }
 
         @Override
         protected Move doInBackground() throws Exception {
@@ -165,14 +178,20 @@ public class View extends Observable {
             //final MoveStrategy strategy = new MiniMax(3);
             //View.getInstance().get
             //final int depth = View.getInstance().getMoveLog().size() > 4 ? 5 : 4;
-            final int depth = View.getInstance().getGameSetupPanel().getSearchDepthValue();
-            final MoveStrategy strategy = new AlphaBeta(depth);
-            final Move bestMove = strategy.execute(View.getInstance().getGameBoard());
+            final int moveTimeSeconds = View.getInstance().getGameSetupPanel().getMoveTimeValue();
+            final int searchThreads = View.getInstance().getGameSetupPanel().getSearchThreadsValue();
+            final MoveStrategy strategy = View.getInstance().getAIStrategy(moveTimeSeconds, searchThreads);
+            final Move bestMove = strategy.execute(View.getInstance().getGameBoard(), this.cancellationToken);
             return bestMove;
         }
 
         @Override
         public void done() {
+            //The move of a cancelled search belongs to a game that is already over
+            if (this.cancellationToken.isCancelled()) {
+                System.out.println("AI search cancelled");
+                return;
+            }
             try {
                 final Move bestMove = this.get();
                 View.getInstance().onComputerMoveDone(bestMove);
@@ -184,6 +203,20 @@ public class View extends Observable {
         }
     }
 
+    //A new strategy is only needed once the move time or the number of threads is changed in the game setup
+    private synchronized LazySmp getAIStrategy(final int moveTimeSeconds, final int searchThreads) {
+        if (this.aiStrategy == null || this.aiMoveTimeSeconds != moveTimeSeconds
+                || this.aiSearchThreads != searchThreads) {
+            if (this.aiStrategy != null) {
+                this.aiStrategy.shutdown();
+            }
+            this.aiStrategy = new LazySmp(TimeControl.moveTime(moveTimeSeconds * 1000L), searchThreads);
+            this.aiMoveTimeSeconds = moveTimeSeconds;
+            this.aiSearchThreads = searchThreads;
+        }
+        return this.aiStrategy;
+    }
+
     private void onComputerMoveDone(final Move bestMove) {
         tryToMakeMove(bestMove);
         updateComputerMove(bestMove);
@@ -294,7 +327,15 @@ public class View extends Observable {
         humanMovedPieceY = -TILE_SIZE;
     }
 
+    private void cancelAISearch() {
+        if (this.aiThinkTank != null) {
+            this.aiThinkTank.cancelSearch();
+            this.aiThinkTank = null;
+        }
+    }
+
     private void cleanAllUpForNewGame(){
+        cancelAISearch();
         this.takenPiecesPanel.clear();
         this.takenPiecesPanel.validate();
         this.takenPiecesPanel.repaint();
@@ -0,0 +1,61 @@
+package test.java;
+
+import com.igorternyuk.engine.Alliance;
+import com.igorternyuk.engine.board.Attacks;
+import com.igorternyuk.engine.board.BitBoard;
+import com.igorternyuk.engine.board.BoardUtils;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class TestAttacks {
+
+    @Test
+    public void magicLookupsMatchRayWalks() {
+        final Random random = new Random(17);
+        for (int i = 0; i < 10000; ++i) {
+            final int square = random.nextInt(BoardUtils.TOTAL_NUMBER_OF_TILES);
+            final long occupancy = random.nextLong() & random.nextLong();
+            assertThat(Attacks.rookAttacks(square, occupancy), is(walkRays(square, occupancy,
+                    new int[][]{{-1, 0}, {1, 0}, {0, -1}, {0, 1}})));
+            assertThat(Attacks.bishopAttacks(square, occupancy), is(walkRays(square, occupancy,
+                    new int[][]{{-1, -1}, {-1, 1}, {1, -1}, {1, 1}})));
+        }
+    }
+
+    @Test
+    public void jumpingPieceAndPawnAttacks() {
+        final int a8 = BitBoard.getSquare(BoardUtils.getLocation("a8"));
+        final int e4 = BitBoard.getSquare(BoardUtils.getLocation("e4"));
+        assertThat(Long.bitCount(Attacks.knightAttacks(a8)), is(2));
+        assertThat(Long.bitCount(Attacks.knightAttacks(e4)), is(8));
+        assertThat(Long.bitCount(Attacks.kingAttacks(a8)), is(3));
+        assertThat(Attacks.pawnAttacks(Alliance.WHITE, e4), is(
+                BitBoard.getSquareMask(BitBoard.getSquare(BoardUtils.getLocation("d5"))) |
+                        BitBoard.getSquareMask(BitBoard.getSquare(BoardUtils.getLocation("f5")))));
+        assertThat(Attacks.pawnAttacks(Alliance.BLACK, e4), is(
+                BitBoard.getSquareMask(BitBoard.getSquare(BoardUtils.getLocation("d3"))) |
+                        BitBoard.getSquareMask(BitBoard.getSquare(BoardUtils.getLocation("f3")))));
+    }
+
+    private static long walkRays(final int square, final long occupancy, final int[][] directions) {
+        long attacks = BitBoard.EMPTY;
+        for (final int[] direction : directions) {
+            int x = BitBoard.getFile(square) + direction[0];
+            int y = BitBoard.getRank(square) + direction[1];
+            while (BoardUtils.isValidLocation(x, y)) {
+                final long mask = BitBoard.getSquareMask(BitBoard.getSquare(x, y));
+                attacks |= mask;
+                if ((occupancy & mask) != BitBoard.EMPTY) {
+                    break;
+                }
+                x += direction[0];
+                y += direction[1];
+            }
+        }
+        return attacks;
+    }
+}
@@ -1,9 +1,12 @@
 package test.java;
 
+import com.google.common.base.Ticker;
 import com.google.common.collect.Iterables;
 import com.igorternyuk.engine.Alliance;
+import com.igorternyuk.engine.board.BitBoard;
 import com.igorternyuk.engine.board.Board;
 import com.igorternyuk.engine.board.BoardUtils;
+import com.igorternyuk.engine.board.FenParser;
 import com.igorternyuk.engine.board.Location;
 import com.igorternyuk.engine.moves.Move;
 import com.igorternyuk.engine.moves.MoveTransition;
@@ -16,6 +19,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.*;
@@ -129,6 +135,27 @@ public class TestBoard {
 
     }
 
+    @Test
+    public void standardBoardBitBoards() {
+        final Board standardBoard = Board.createStandardBoard();
+        final BitBoard bitBoard = standardBoard.getBitBoard();
+
+        assertEquals(32, Long.bitCount(bitBoard.getOccupancy()));
+        assertEquals(8, bitBoard.countPieces(Alliance.WHITE, PieceType.PAWN));
+        assertEquals(8, bitBoard.countPieces(Alliance.BLACK, PieceType.PAWN));
+        assertEquals(1, bitBoard.countPieces(Alliance.WHITE, PieceType.KING));
+        assertEquals(BitBoard.getSquareMask(BitBoard.getSquare(BoardUtils.getLocation("e1"))),
+                bitBoard.getPieces(Alliance.WHITE, PieceType.KING));
+        assertEquals(BitBoard.getSquareMask(BitBoard.getSquare(BoardUtils.getLocation("d8"))),
+                bitBoard.getPieces(Alliance.BLACK, PieceType.QUEEN));
+        assertEquals(0L, bitBoard.getPieces(Alliance.WHITE) & bitBoard.getPieces(Alliance.BLACK));
+
+        for (int square = 0; square < BoardUtils.TOTAL_NUMBER_OF_TILES; ++square) {
+            assertEquals(bitBoard.isOccupied(square), standardBoard.getTile(square).isOccupied());
+            assertEquals(BitBoard.getLocation(square), standardBoard.getTile(square).getTileLocation());
+        }
+    }
+
     @Test
     public void initialRandomFisherChessBoard(){
         Board randomBoard = Board.createBoardForChess960();
@@ -281,6 +308,195 @@ public class TestBoard {
         assertEquals(bestMove, aiMove);
     }
 
+    @Test
+    public void quiescenceSearchSeesRecaptures() {
+        //Both pawns the queen can take are defended, only a search that resolves the captures sees it
+        final Board board = FenParser.createBoard("4k3/2p5/3p4/4p3/3Q4/8/8/4K3 w - - 0 1");
+        final Move aiMove = new AlphaBeta(1).execute(board);
+        assertThat(aiMove.isCapturingMove(), is(false));
+    }
+
+    @Test
+    public void searchResultStartsWithTheBestMove() {
+        final Board board = Board.createStandardBoard();
+        final AlphaBeta alphaBeta = new AlphaBeta(4);
+        final Move aiMove = alphaBeta.execute(board);
+        final SearchResult searchResult = alphaBeta.getSearchResult();
+        assertEquals(aiMove, searchResult.getBestMove());
+        assertEquals(aiMove, searchResult.getPrincipalVariation().get(0));
+        assertThat(searchResult.getDepth(), is(4));
+        assertThat(searchResult.getPrincipalVariation().size() > 1, is(true));
+    }
+
+    @Test
+    public void aspirationWindowWidensTheSideTheScoreFailedOn() {
+        final AspirationWindow window = new AspirationWindow(100, 10);
+        assertThat(window.widen(115), is(true));
+        assertThat(window.getAlpha(), is(90L));
+        assertThat(window.getBeta(), is(120L));
+        assertThat(window.widen(80), is(true));
+        assertThat(window.getAlpha(), is(80L));
+        assertThat(window.getBeta(), is(120L));
+        assertThat(window.widen(85), is(false));
+    }
+
+    @Test
+    public void aspirationWindowOpensASideThatGrowsTooWide() {
+        final long widestWindow = 4 * StandardPositionEvaluator.getMaterialScore(PieceType.QUEEN);
+        final AspirationWindow window = new AspirationWindow(0, widestWindow);
+        assertThat(window.widen(widestWindow), is(true));
+        assertThat(window.getBeta(), is(Long.MAX_VALUE));
+        assertThat(window.getAlpha(), is(-widestWindow));
+        assertThat(window.widen(Long.MAX_VALUE - 1), is(false));
+    }
+
+    @Test
+    public void windowedSearchMatchesFullWindowSearch() {
+        final String[] positions = {
+                "r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3",
+                "2r3k1/pp3ppp/8/3N4/8/8/PPP2PPP/4R1K1 b - - 0 1"
+        };
+        for (final String fen : positions) {
+            final Board board = FenParser.createBoard(fen);
+            //Null move pruning cuts by the window the node is searched with, so only the search without it
+            //scores the same whatever the window. Equally scored moves may still be tried in another order
+            final AlphaBeta fullWindowSearch = new AlphaBeta(TimeControl.fixedDepth(5), new TranspositionTable(),
+                    SearchOptions.DEFAULT.withoutPrincipalVariationSearch().withoutAspirationWindows()
+                            .withoutNullMovePruning());
+            fullWindowSearch.execute(board);
+            //A window of one forces every iteration to fail high or low, usually both, before it is exact
+            final AlphaBeta windowedSearch = new AlphaBeta(TimeControl.fixedDepth(5), new TranspositionTable(),
+                    SearchOptions.DEFAULT.withAspirationWindow(1).withoutNullMovePruning());
+            windowedSearch.execute(board);
+            assertThat(windowedSearch.getSearchResult().getScore(), is(fullWindowSearch.getSearchResult().getScore()));
+            assertThat(windowedSearch.getAspirationResearches() > 0, is(true));
+            assertThat(fullWindowSearch.getAspirationResearches(), is(0L));
+        }
+    }
+
+    @Test
+    public void nullMoveIsNeverTriedInPawnEndings() {
+        //Both are zugzwangs, so a search that passed the turn would see a different tree
+        final String[] positions = {
+                "8/k7/3p4/p2P1p2/P2P1P2/8/8/K7 w - - 0 1",
+                "6k1/5p2/6p1/8/7p/8/6PP/6K1 b - - 0 1"
+        };
+        for (final String fen : positions) {
+            final Board board = FenParser.createBoard(fen);
+            final AlphaBeta withNullMove = new AlphaBeta(TimeControl.fixedDepth(7), new TranspositionTable());
+            final AlphaBeta withoutNullMove = new AlphaBeta(TimeControl.fixedDepth(7), new TranspositionTable(),
+                    SearchOptions.DEFAULT.withoutNullMovePruning());
+            assertEquals(withoutNullMove.execute(board), withNullMove.execute(board));
+            assertThat(withNullMove.getSearchResult().getScore(), is(withoutNullMove.getSearchResult().getScore()));
+            assertThat(withNullMove.getNodesSearched(), is(withoutNullMove.getNodesSearched()));
+        }
+    }
+
+    @Test
+    public void verifiedNullMoveSearchSeesZugzwang() {
+        //Only Kh6 leaves black without a safe move. Deep enough for the null move cutoffs below the root moves to
+        //be verified, the search finds it like one that never passes the turn
+        final Board board = FenParser.createBoard("1q1k4/2Rr4/8/2Q3K1/8/8/8/8 w - - 0 1");
+        final AlphaBeta withoutNullMove = new AlphaBeta(TimeControl.fixedDepth(6), new TranspositionTable(),
+                SearchOptions.DEFAULT.withoutNullMovePruning());
+        final Move expectedMove = withoutNullMove.execute(board);
+        assertEquals(Move.MoveFactory.createMove(board, "g5", "h6"), expectedMove);
+        final AlphaBeta withNullMove = new AlphaBeta(TimeControl.fixedDepth(6), new TranspositionTable());
+        assertEquals(expectedMove, withNullMove.execute(board));
+        assertThat(withNullMove.getNodesSearched() < withoutNullMove.getNodesSearched(), is(true));
+    }
+
+    @Test
+    public void mateScoreIsRecognizedWhateverThePositionAddsToIt() {
+        final long queens = 9 * StandardPositionEvaluator.getMaterialScore(PieceType.QUEEN);
+        assertThat(StandardPositionEvaluator.isMateScore(StandardPositionEvaluator.CHECKMATE_SCORE - queens), is(true));
+        assertThat(StandardPositionEvaluator.isMateScore(queens - StandardPositionEvaluator.CHECKMATE_SCORE), is(true));
+        assertThat(StandardPositionEvaluator.isMateScore(queens), is(false));
+    }
+
+    @Test
+    public void lazySmpFindsCheckMate() {
+        final Board board = Board.createBoardByPattern(new String[][]{
+                {"[ ]", "[R]", "[ ]", "[.]", "[ ]", "[.]", "[K]", "[.]"},
+                {"[r]", "[B]", "[B]", "[ ]", "[.]", "[ ]", "[P]", "[ ]"},
+                {"[ ]", "[P]", "[ ]", "[.]", "[P]", "[.]", "[ ]", "[.]"},
+                {"[.]", "[ ]", "[.]", "[Q]", "[n]", "[ ]", "[.]", "[P]"},
+                {"[ ]", "[.]", "[n]", "[p]", "[ ]", "[.]", "[ ]", "[.]"},
+                {"[.]", "[ ]", "[.]", "[ ]", "[q]", "[ ]", "[p]", "[p]"},
+                {"[ ]", "[.]", "[ ]", "[.]", "[ ]", "[p]", "[ ]", "[k]"},
+                {"[.]", "[ ]", "[.]", "[ ]", "[.]", "[ ]", "[.]", "[ ]"}
+        }, Alliance.BLACK);
+        final LazySmp moveStrategy = new LazySmp(TimeControl.fixedDepth(4), 4);
+        try {
+            final Move aiMove = moveStrategy.execute(board);
+            assertEquals(Move.MoveFactory.createMove(board, "d5", "h1"), aiMove);
+            assertThat(moveStrategy.getNodesSearched() > 0, is(true));
+            //The second search runs on the same helper threads
+            assertEquals(Move.MoveFactory.createMove(board, "d5", "h1"), moveStrategy.execute(board));
+        } finally {
+            moveStrategy.shutdown();
+        }
+    }
+
+    @Test
+    public void forkJoinSearchMatchesSerialSearch() {
+        final Board board = Board.createStandardBoard();
+        final MoveTransition mt1 = board.getCurrentPlayer().makeMove(Move.MoveFactory.createMove(board, "e2", "e4"));
+        final MoveTransition mt2 = mt1.getTransitedBoard().getCurrentPlayer()
+                .makeMove(Move.MoveFactory.createMove(mt1.getTransitedBoard(), "d7", "d5"));
+        final Board position = mt2.getTransitedBoard();
+        final Move serialMove = new AlphaBeta(3).execute(position);
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final Move parallelMove = new AlphaBeta(TimeControl.fixedDepth(3), pool).execute(position);
+            assertEquals(serialMove, parallelMove);
+            final Move youngBrothersMove = new AlphaBeta(TimeControl.fixedDepth(3), pool,
+                    SplitMode.YOUNG_BROTHERS_WAIT).execute(position);
+            assertEquals(serialMove, youngBrothersMove);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void timeLimitedSearchReturnsWithinMoveTime() {
+        final Board board = Board.createStandardBoard();
+        //Every look at the clock takes a millisecond, so the limits are reached after a fixed amount of work
+        final SteppingTicker ticker = new SteppingTicker(1);
+        final TimeControl timeControl = TimeControl.moveTime(500).withTicker(ticker);
+        final AlphaBeta alphaBeta = new AlphaBeta(timeControl);
+        final Move aiMove = alphaBeta.execute(board);
+        assertThat(board.getCurrentPlayer().getLegalMoves().contains(aiMove), is(true));
+        assertThat(ticker.getElapsedMillis() <= timeControl.getHardLimitMillis(), is(true));
+        assertThat(alphaBeta.getSearchResult().getDepth() > 0, is(true));
+        assertThat(alphaBeta.getSearchResult().getDepth() < TimeControl.MAX_SEARCH_DEPTH, is(true));
+    }
+
+    @Test
+    public void noIterationStartsAfterTheSoftLimit() {
+        final Board board = Board.createStandardBoard();
+        //The clock is past the soft limit, but not the hard one, as soon as the first iteration looks at it
+        final SteppingTicker ticker = new SteppingTicker(5000);
+        final AlphaBeta alphaBeta = new AlphaBeta(TimeControl.clock(60000, 0).withTicker(ticker));
+        final Move aiMove = alphaBeta.execute(board);
+        assertThat(board.getCurrentPlayer().getLegalMoves().contains(aiMove), is(true));
+        assertThat(alphaBeta.getSearchResult().getDepth(), is(1));
+    }
+
+    @Test
+    public void cancelledSearchReturnsBestMoveSoFar() {
+        final Board board = Board.createStandardBoard();
+        final CancellationToken cancellationToken = new CancellationToken();
+        cancellationToken.cancel();
+        final AlphaBeta alphaBeta = new AlphaBeta(20);
+        for (final MoveStrategy moveStrategy : new MoveStrategy[]{alphaBeta, new MiniMax(8)}) {
+            final Move aiMove = moveStrategy.execute(board, cancellationToken);
+            assertThat(board.getCurrentPlayer().getLegalMoves().contains(aiMove), is(true));
+        }
+        //Not even the first iteration was searched, the move is the first one the ordering picks
+        assertThat(alphaBeta.getSearchResult().getDepth(), is(0));
+    }
+
     @Test
     public void testEval1() {
         final Board board = Board.createStandardBoard();
@@ -396,4 +612,24 @@ public class TestBoard {
         //final Move bestMove = Move.MoveFactory.createMove(mt3.getTransitedBoard(), "d8", "h4");
         //assertEquals(aiMove, bestMove);
     }
-}
\ No newline at end of file
+
+    //A clock that moves on by a fixed step each time it is read
+    private static final class SteppingTicker extends Ticker {
+        private final long stepNanos;
+        private final AtomicLong nanos = new AtomicLong();
+
+        private SteppingTicker(final long stepMillis) {
+            this.stepNanos = TimeUnit.MILLISECONDS.toNanos(stepMillis);
+        }
+
+        @Override
+        public long read() {
+            return this.nanos.addAndGet(this.stepNanos);
+        }
+
+        //From the first reading to the last one
+        long getElapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(this.nanos.get() - this.stepNanos);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package test.java;
 
+import com.igorternyuk.engine.Alliance;
 import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.board.BoardUtils;
+import com.igorternyuk.engine.board.FenParser;
 import com.igorternyuk.engine.moves.Move;
 import com.igorternyuk.engine.moves.MoveTransition;
 import org.junit.Test;
@@ -267,4 +270,16 @@ public class TestCastling {
         assertThat(mt11.getTransitedBoard().getWhitePlayer().isCheckMate(), is(false));
         assertThat(mt11.getTransitedBoard().getWhitePlayer().isInStalemate(), is(false));
     }
+
+    @Test
+    public void testNoCastlingThroughSquareAttackedByPawn() {
+        //The pawn on e2 has no move to f1, it only attacks the square the king passes through
+        final Board board = FenParser.createBoard("4k3/8/8/8/8/8/4p3/R3K2R w KQ - 0 1");
+        assertThat(board.isSquareAttacked(BoardUtils.getLocation("f1"), Alliance.BLACK), is(true));
+        assertThat(board.isSquareAttacked(BoardUtils.getLocation("e1"), Alliance.BLACK), is(false));
+        assertThat(Long.bitCount(board.attackersTo(BoardUtils.getLocation("d1"))), is(3));
+        assertThat(board.getCurrentPlayer().isUnderCheck(), is(false));
+        assertThat(board.getCurrentPlayer().canCastleKingSide(), is(false));
+        assertThat(board.getCurrentPlayer().canCastleQueenSide(), is(false));
+    }
 }
@@ -0,0 +1,76 @@
+package test.java;
+
+import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.board.FenParser;
+import com.igorternyuk.engine.board.SearchBoard;
+import com.igorternyuk.engine.perft.ParallelPerft;
+import com.igorternyuk.engine.perft.Perft;
+import com.igorternyuk.engine.perft.PerftCache;
+import com.igorternyuk.engine.perft.PerftPosition;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class TestPerft {
+    private static final int BOARD_DEPTH = 2;
+    private static final int SEARCH_BOARD_DEPTH = 3;
+
+    @Test
+    public void referencePositionsHaveReferenceCounts() {
+        for (final PerftPosition position : PerftPosition.values()) {
+            final Board board = position.createBoard();
+            assertThat(position + " Board", Perft.perft(board, BOARD_DEPTH),
+                    is(position.getExpectedNodes(BOARD_DEPTH)));
+            assertThat(position + " SearchBoard", Perft.perft(new SearchBoard(board), SEARCH_BOARD_DEPTH),
+                    is(position.getExpectedNodes(SEARCH_BOARD_DEPTH)));
+        }
+    }
+
+    @Test
+    public void randomChess960BoardsAgree() {
+        for (int i = 0; i < 3; ++i) {
+            final Board board = Board.createBoardForChess960();
+            assertThat(Perft.perft(board, BOARD_DEPTH), is(Perft.perft(new SearchBoard(board), BOARD_DEPTH)));
+        }
+    }
+
+    @Test
+    public void divideAddsUpToPerft() {
+        final Board board = FenParser.createBoard(PerftPosition.KIWIPETE.getFen());
+        final Map<String, Long> nodesPerMove = Perft.divide(board, BOARD_DEPTH);
+        assertThat(nodesPerMove.size(), is((int) PerftPosition.KIWIPETE.getExpectedNodes(1)));
+        assertThat(nodesPerMove.get("e1g1"), is(43L));
+        assertThat(nodesPerMove.values().stream().mapToLong(Long::longValue).sum(),
+                is(PerftPosition.KIWIPETE.getExpectedNodes(BOARD_DEPTH)));
+    }
+
+    @Test
+    public void parallelPerftMatchesReferenceCounts() {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final ParallelPerft parallelPerft = new ParallelPerft(pool, new PerftCache(1));
+            for (final PerftPosition position : new PerftPosition[]{PerftPosition.STARTING_POSITION,
+                    PerftPosition.PROMOTIONS, PerftPosition.CHESS960_1}) {
+                assertThat(position.toString(), parallelPerft.perft(position.createBoard(), 4),
+                        is(position.getExpectedNodes(4)));
+            }
+            //Repeating a count must be answered from the cache
+            assertThat(parallelPerft.perft(PerftPosition.STARTING_POSITION.createBoard(), 4),
+                    is(PerftPosition.STARTING_POSITION.getExpectedNodes(4)));
+            assertThat(parallelPerft.getCache().getHits() > 0, is(true));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void fenOfStartingPositionMatchesStandardBoard() {
+        final Board board = PerftPosition.STARTING_POSITION.createBoard();
+        assertThat(board.getZobristKey(), is(Board.createStandardBoard().getZobristKey()));
+        assertThat(board.getCastlingRights(), is(Board.createStandardBoard().getCastlingRights()));
+    }
+}
@@ -0,0 +1,395 @@
+package test.java;
+
+import com.google.common.primitives.Ints;
+import com.igorternyuk.engine.Alliance;
+import com.igorternyuk.engine.board.BitBoard;
+import com.igorternyuk.engine.board.Board;
+import com.igorternyuk.engine.board.BoardUtils;
+import com.igorternyuk.engine.board.FenParser;
+import com.igorternyuk.engine.board.GameType;
+import com.igorternyuk.engine.board.SearchBoard;
+import com.igorternyuk.engine.board.Zobrist;
+import com.igorternyuk.engine.moves.Move;
+import com.igorternyuk.engine.moves.SearchMove;
+import com.igorternyuk.engine.perft.PerftPosition;
+import com.igorternyuk.engine.pieces.King;
+import com.igorternyuk.engine.pieces.Pawn;
+import com.igorternyuk.engine.pieces.PieceSquareTables;
+import com.igorternyuk.engine.pieces.PieceType;
+import com.igorternyuk.engine.pieces.Rook;
+import com.igorternyuk.engine.player.ai.MovePicker;
+import com.igorternyuk.engine.player.ai.PositionEvaluator;
+import com.igorternyuk.engine.player.ai.StandardPositionEvaluator;
+import com.igorternyuk.engine.player.ai.TranspositionTable;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class TestSearchBoard {
+
+    @Test
+    public void standardBoardLeafCounts() {
+        final SearchBoard searchBoard = new SearchBoard(Board.createStandardBoard());
+        assertThat(countLeaves(searchBoard, 1), is(20L));
+        assertThat(countLeaves(searchBoard, 2), is(400L));
+        assertThat(countLeaves(searchBoard, 3), is(8902L));
+        assertThat(countLeaves(searchBoard, 4), is(197281L));
+    }
+
+    @Test
+    public void makeAndUnmakeRestorePosition() {
+        final SearchBoard searchBoard = new SearchBoard(Board.createStandardBoard());
+        final String initialPosition = searchBoard.toDecoratedString();
+        final long initialOccupancy = searchBoard.getOccupancy();
+        for (final int move : searchBoard.generateLegalMoves()) {
+            searchBoard.makeMove(move);
+            for (final int reply : searchBoard.generateLegalMoves()) {
+                searchBoard.makeMove(reply);
+                searchBoard.unmakeMove();
+            }
+            searchBoard.unmakeMove();
+        }
+        assertThat(searchBoard.toDecoratedString(), is(initialPosition));
+        assertThat(searchBoard.getOccupancy(), is(initialOccupancy));
+        assertThat(searchBoard.getCastlingRights(), is(BoardUtils.WHITE_KING_SIDE_CASTLING |
+                BoardUtils.WHITE_QUEEN_SIDE_CASTLING | BoardUtils.BLACK_KING_SIDE_CASTLING |
+                BoardUtils.BLACK_QUEEN_SIDE_CASTLING));
+        assertThat(searchBoard.getPly(), is(0));
+    }
+
+    @Test
+    public void makeMoveIfLegalAcceptsExactlyTheLegalMoves() {
+        final SearchBoard searchBoard = new SearchBoard(PerftPosition.KIWIPETE.createBoard());
+        final String initialPosition = searchBoard.toDecoratedString();
+        final long initialKey = searchBoard.getZobristKey();
+        int legalMoves = 0;
+        for (final int move : searchBoard.generatePseudoLegalMoves()) {
+            if (searchBoard.makeMoveIfLegal(move)) {
+                ++legalMoves;
+                searchBoard.unmakeMove();
+            }
+            assertThat(searchBoard.toDecoratedString(), is(initialPosition));
+            assertThat(searchBoard.getZobristKey(), is(initialKey));
+        }
+        assertThat(legalMoves, is(searchBoard.generateLegalMoves().length));
+        assertThat(legalMoves, is((int) PerftPosition.KIWIPETE.getExpectedNodes(1)));
+    }
+
+    @Test
+    public void legalMovesRespectPinsChecksAndEnPassant() {
+        //The rook checks along the first rank and pins nothing, the bishop pins the knight that could block
+        final SearchBoard inCheck = new SearchBoard(FenParser.createBoard("4k3/8/8/8/1b6/8/3N4/r3K2R w K - 0 1"));
+        final int[] evasions = new int[SearchBoard.MAX_MOVES];
+        final int numberOfEvasions = inCheck.generateEvasions(evasions, 0);
+        assertThat(numberOfEvasions, is(2));
+        assertThat(IntStream.of(evasions).limit(numberOfEvasions)
+                .allMatch(move -> SearchMove.getMovedPieceType(move).isKing()), is(true));
+        assertThat(inCheck.findLegalMove(BitBoard.getSquare(BoardUtils.getLocation("e1")),
+                BitBoard.getSquare(BoardUtils.getLocation("f1")), null), is(SearchMove.NO_MOVE));
+        //Taking en passant would leave both pawns off the fifth rank and the king open to the rook
+        final SearchBoard enPassantPin = new SearchBoard(FenParser.createBoard("8/8/8/K2pP2r/8/8/8/4k3 w - d6 0 1"));
+        assertThat(IntStream.of(enPassantPin.generatePseudoLegalMoves()).anyMatch(SearchMove::isEnPassantCapture),
+                is(true));
+        assertThat(IntStream.of(enPassantPin.generateLegalMoves()).noneMatch(SearchMove::isEnPassantCapture),
+                is(true));
+    }
+
+    @Test
+    public void movePickerReturnsEveryMoveOnceInStageOrder() {
+        final SearchBoard searchBoard = new SearchBoard(PerftPosition.KIWIPETE.createBoard());
+        final int[] legalMoves = searchBoard.generateLegalMoves();
+        final int[] quietMoves = new int[SearchBoard.MAX_MOVES];
+        searchBoard.generateQuietMoves(quietMoves, 0);
+        final int hashMove = quietMoves[0];
+        final int killer = quietMoves[1];
+        final int counterMove = quietMoves[2];
+        final int impossibleKiller = SearchMove.create(0, 63, PieceType.ROOK, null, null, SearchMove.QUIET);
+        final MovePicker movePicker = new MovePicker(searchBoard, TranspositionTable.encodeMove(hashMove),
+                new int[]{impossibleKiller, killer}, counterMove, null);
+        final List<Integer> pickedMoves = new ArrayList<>();
+        for (int move = movePicker.next(); move != SearchMove.NO_MOVE; move = movePicker.next()) {
+            pickedMoves.add(move);
+        }
+        final int[] captures = new int[SearchBoard.MAX_MOVES];
+        final int numberOfCaptures = searchBoard.generateCaptures(captures, 0);
+        final int numberOfLosingCaptures = (int) IntStream.of(captures).limit(numberOfCaptures)
+                .filter(capture -> searchBoard.evaluateStaticExchange(capture) < 0)
+                .count();
+        final int numberOfGoodCaptures = numberOfCaptures - numberOfLosingCaptures;
+        assertThat(numberOfLosingCaptures > 0, is(true));
+        assertThat(pickedMoves.size(), is(legalMoves.length));
+        assertThat(new HashSet<>(pickedMoves), is(new HashSet<>(Ints.asList(legalMoves))));
+        assertThat(pickedMoves.get(0), is(hashMove));
+        assertThat(pickedMoves.get(numberOfGoodCaptures + 1), is(killer));
+        assertThat(pickedMoves.get(numberOfGoodCaptures + 2), is(counterMove));
+        for (int i = 1; i < numberOfGoodCaptures; ++i) {
+            assertThat(BoardUtils.mvvlva(pickedMoves.get(i)) >= BoardUtils.mvvlva(pickedMoves.get(i + 1)), is(true));
+        }
+        for (int i = legalMoves.length - numberOfLosingCaptures; i < legalMoves.length; ++i) {
+            assertThat(searchBoard.evaluateStaticExchange(pickedMoves.get(i)) < 0, is(true));
+        }
+    }
+
+    @Test
+    public void movePickerPlaysAKillerCastlingThatSharesSquaresWithAKingMove() {
+        //In Chess960 castling f1g1 and the plain king move f1g1 are different moves between the same squares
+        final SearchBoard searchBoard = new SearchBoard(FenParser.createBoard("4k3/8/8/8/8/8/8/5K1R w H - 0 1"));
+        final int[] legalMoves = searchBoard.generateLegalMoves();
+        final int castling = IntStream.of(legalMoves).filter(SearchMove::isCastlingMove).findFirst().getAsInt();
+        assertThat(IntStream.of(legalMoves).filter(move -> SearchMove.getFrom(move) == SearchMove.getFrom(castling)
+                && SearchMove.getTo(move) == SearchMove.getTo(castling)).count(), is(2L));
+        for (final int[] refutations : new int[][]{{castling, SearchMove.NO_MOVE}, {SearchMove.NO_MOVE, castling}}) {
+            final MovePicker movePicker = new MovePicker(searchBoard, TranspositionTable.NO_MOVE,
+                    new int[]{refutations[0]}, refutations[1], null);
+            final List<Integer> pickedMoves = new ArrayList<>();
+            for (int move = movePicker.next(); move != SearchMove.NO_MOVE; move = movePicker.next()) {
+                pickedMoves.add(move);
+            }
+            assertThat(pickedMoves.size(), is(legalMoves.length));
+            assertThat(new HashSet<>(pickedMoves), is(new HashSet<>(Ints.asList(legalMoves))));
+        }
+    }
+
+    @Test
+    public void staticExchangeEvaluationPlaysOutRecapturesWithXRays() {
+        //The rook wins the pawn, nothing defends it
+        assertThat(evaluateStaticExchange("1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1", "e1", "e5"),
+                is(PieceType.PAWN.getValue()));
+        //Knight for pawn: the queens behind the rook and the bishop join in, so white stops after the first
+        //recapture
+        assertThat(evaluateStaticExchange("1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1", "d3", "e5"),
+                is(PieceType.PAWN.getValue() - PieceType.KNIGHT.getValue()));
+        assertThat(evaluateStaticExchange("4k3/2p5/3p4/4p3/3Q4/8/8/4K3 w - - 0 1", "d4", "e5"),
+                is(PieceType.PAWN.getValue() - PieceType.QUEEN.getValue()));
+        //The king may not recapture a defended piece
+        assertThat(evaluateStaticExchange("8/4k3/3p4/8/4N3/8/8/3RK3 w - - 0 1", "d1", "d6"),
+                is(PieceType.PAWN.getValue()));
+    }
+
+    @Test
+    public void movePickerReturnsALegalHashCaptureFirstAndOnlyOnce() {
+        //The knight on e2 is pinned, so its capture on c3 is not a legal hash move while the bishop's one is
+        final SearchBoard searchBoard = new SearchBoard(FenParser.createBoard("4r1k1/8/8/8/8/2p5/1B2N3/4K3 w - - 0 1"));
+        final int[] legalMoves = searchBoard.generateLegalMoves();
+        final int bishopCapture = SearchMove.create(BitBoard.getSquare(1, 6), BitBoard.getSquare(2, 5),
+                PieceType.BISHOP, PieceType.PAWN, null, SearchMove.QUIET);
+        final int knightCapture = SearchMove.create(BitBoard.getSquare(4, 6), BitBoard.getSquare(2, 5),
+                PieceType.KNIGHT, PieceType.PAWN, null, SearchMove.QUIET);
+        for (final int hashMove : new int[]{bishopCapture, knightCapture}) {
+            final MovePicker movePicker = new MovePicker(searchBoard, TranspositionTable.encodeMove(hashMove),
+                    MovePicker.NO_KILLERS, SearchMove.NO_MOVE, null);
+            final List<Integer> pickedMoves = new ArrayList<>();
+            for (int move = movePicker.next(); move != SearchMove.NO_MOVE; move = movePicker.next()) {
+                pickedMoves.add(move);
+            }
+            assertThat(pickedMoves.size(), is(legalMoves.length));
+            assertThat(new HashSet<>(pickedMoves), is(new HashSet<>(Ints.asList(legalMoves))));
+            assertThat(pickedMoves.contains(knightCapture), is(false));
+            assertThat(pickedMoves.get(0), is(bishopCapture));
+        }
+    }
+
+    @Test
+    public void chess960CastlingOfAKingOnItsCastlingSquareIsEncodedAndDecoded() {
+        //The king stays on g1 and only the rook moves from h1 to f1
+        final SearchBoard searchBoard = new SearchBoard(FenParser.createBoard("4k3/8/8/8/8/8/8/6KR w H - 0 1"));
+        final int castling = IntStream.of(searchBoard.generateLegalMoves()).filter(SearchMove::isCastlingMove)
+                .findFirst().getAsInt();
+        final int kingSquare = BitBoard.getSquare(6, 7);
+        assertThat(castling == SearchMove.NO_MOVE, is(false));
+        assertThat(castling, is(SearchMove.create(kingSquare, kingSquare, PieceType.KING, null, null,
+                SearchMove.KING_SIDE_CASTLING)));
+        assertThat(SearchMove.getFrom(castling), is(kingSquare));
+        assertThat(SearchMove.getTo(castling), is(kingSquare));
+        assertThat(SearchMove.getMovedPieceType(castling), is(PieceType.KING));
+        assertThat(SearchMove.isKingSideCastling(castling), is(true));
+        assertThat(TranspositionTable.decodeMove(searchBoard, TranspositionTable.encodeMove(castling)), is(castling));
+        final long zobristKey = searchBoard.getZobristKey();
+        searchBoard.makeMove(castling);
+        assertThat(searchBoard.getPieceType(kingSquare), is(PieceType.KING));
+        assertThat(searchBoard.getPieceType(BitBoard.getSquare(5, 7)), is(PieceType.ROOK));
+        assertThat(searchBoard.getPieceType(BitBoard.getSquare(7, 7)) == null, is(true));
+        searchBoard.unmakeMove();
+        assertThat(searchBoard.getPieceType(BitBoard.getSquare(7, 7)), is(PieceType.ROOK));
+        assertThat(searchBoard.getZobristKey(), is(zobristKey));
+    }
+
+    @Test
+    public void legalMovesMatchBoard() {
+        Board board = Board.createStandardBoard();
+        final String[][] moves = {{"e2", "e4"}, {"e7", "e5"}, {"g1", "f3"}, {"b8", "c6"}, {"f1", "b5"},
+                {"d7", "d6"}, {"d2", "d4"}, {"c8", "g4"}, {"d4", "e5"}, {"d8", "d7"}};
+        for (final String[] move : moves) {
+            board = board.getCurrentPlayer().makeMove(Move.MoveFactory.createMove(board, move[0], move[1]))
+                    .getTransitedBoard();
+            final SearchBoard searchBoard = new SearchBoard(board);
+            final Board currentBoard = board;
+            final long numberOfLegalMoves = StreamSupport.stream(board.getCurrentPlayer().getLegalMoves()
+                    .spliterator(), false)
+                    .filter(legalMove -> currentBoard.getCurrentPlayer().makeMove(legalMove).getMoveStatus().isDone())
+                    .count();
+            assertThat((long) searchBoard.generateLegalMoves().length, is(numberOfLegalMoves));
+            for (final int searchMove : searchBoard.generateLegalMoves()) {
+                final Move boardMove = Move.MoveFactory.createMove(board, searchMove);
+                assertThat(boardMove != Move.MoveFactory.NULL_MOVE, is(true));
+                assertThat(SearchMove.create(boardMove), is(searchMove));
+            }
+        }
+    }
+
+    @Test
+    public void zobristKeysAreUpdatedIncrementally() {
+        final Random random = new Random(17);
+        for (int game = 0; game < 10; ++game) {
+            Board board = game % 2 == 0 ? Board.createStandardBoard() : Board.createBoardForChess960();
+            for (int ply = 0; ply < 80 && !board.isEndGameScenario(); ++ply) {
+                final SearchBoard searchBoard = new SearchBoard(board);
+                final int[] legalMoves = searchBoard.generateLegalMoves();
+                final int searchMove = legalMoves[random.nextInt(legalMoves.length)];
+                board = board.getCurrentPlayer().makeMove(Move.MoveFactory.createMove(board, searchMove))
+                        .getTransitedBoard();
+                searchBoard.makeMove(searchMove);
+                assertThat(board.getZobristKey(), is(Zobrist.calculateKey(board)));
+                assertThat(searchBoard.getZobristKey(), is(board.getZobristKey()));
+            }
+        }
+    }
+
+    @Test
+    public void nullMoveOnlyPassesTheTurn() {
+        final SearchBoard searchBoard = new SearchBoard(Board.createStandardBoard());
+        searchBoard.makeMove(findMove(searchBoard, "e2", "e4"));
+        final long zobristKey = searchBoard.getZobristKey();
+        final String position = searchBoard.toDecoratedString();
+        searchBoard.makeNullMove();
+        assertThat(searchBoard.getSideToMove(), is(Alliance.WHITE));
+        assertThat(searchBoard.getEnPassantSquare(), is(SearchBoard.NO_SQUARE));
+        assertThat(searchBoard.getPreviousMove(0), is(SearchMove.NO_MOVE));
+        assertThat(searchBoard.toDecoratedString(), is(position));
+        searchBoard.unmakeNullMove();
+        assertThat(searchBoard.getSideToMove(), is(Alliance.BLACK));
+        assertThat(searchBoard.getZobristKey(), is(zobristKey));
+        assertThat(searchBoard.getPly(), is(1));
+
+        //Passing the turn transposes into the same position as any other way of giving the move away
+        final SearchBoard viaNullMove = new SearchBoard(Board.createStandardBoard());
+        viaNullMove.makeMove(findMove(viaNullMove, "g1", "f3"));
+        viaNullMove.makeNullMove();
+        viaNullMove.makeMove(findMove(viaNullMove, "f3", "g5"));
+        final SearchBoard viaOtherKnightMove = new SearchBoard(Board.createStandardBoard());
+        viaOtherKnightMove.makeMove(findMove(viaOtherKnightMove, "g1", "h3"));
+        viaOtherKnightMove.makeNullMove();
+        viaOtherKnightMove.makeMove(findMove(viaOtherKnightMove, "h3", "g5"));
+        assertThat(viaNullMove.getZobristKey(), is(viaOtherKnightMove.getZobristKey()));
+    }
+
+    @Test
+    public void turnIsNotPassedInCheckInPawnEndingsOrTwice() {
+        final SearchBoard searchBoard = new SearchBoard(Board.createStandardBoard());
+        searchBoard.makeMove(findMove(searchBoard, "e2", "e4"));
+        assertThat(searchBoard.canPassTheTurn(), is(true));
+        searchBoard.makeNullMove();
+        assertThat(searchBoard.canPassTheTurn(), is(false));
+        searchBoard.unmakeNullMove();
+
+        final SearchBoard inCheck = new SearchBoard(FenParser.createBoard("3qk3/8/8/8/8/8/8/R3K3 w - - 0 1"));
+        inCheck.makeMove(findMove(inCheck, "a1", "a2"));
+        inCheck.makeMove(findMove(inCheck, "d8", "d1"));
+        assertThat(inCheck.isInCheck(), is(true));
+        assertThat(inCheck.canPassTheTurn(), is(false));
+
+        final SearchBoard pawnEnding = new SearchBoard(FenParser.createBoard("4k3/4p3/8/8/8/8/4P3/4K3 w - - 0 1"));
+        pawnEnding.makeMove(findMove(pawnEnding, "e2", "e4"));
+        assertThat(pawnEnding.canPassTheTurn(), is(false));
+    }
+
+    @Test
+    public void transpositionsShareZobristKey() {
+        Board board = Board.createStandardBoard();
+        final long initialKey = board.getZobristKey();
+        final String[][] moves = {{"g1", "f3"}, {"g8", "f6"}, {"f3", "g1"}, {"f6", "g8"}};
+        for (final String[] move : moves) {
+            board = board.getCurrentPlayer().makeMove(Move.MoveFactory.createMove(board, move[0], move[1]))
+                    .getTransitedBoard();
+        }
+        assertThat(board.getZobristKey(), is(initialKey));
+    }
+
+    @Test
+    public void evaluationScoresMovedPiecesLikeTheBoard() {
+        final SearchBoard searchBoard = new SearchBoard(Board.createStandardBoard());
+        final PositionEvaluator evaluator = new StandardPositionEvaluator();
+        final long initialScore = evaluator.evaluate(searchBoard, 0);
+        //The pieces are back home, but white has moved one knight and black both
+        final String[][] moves = {{"g1", "f3"}, {"b8", "c6"}, {"f3", "g1"}, {"c6", "b8"},
+                {"g1", "f3"}, {"g8", "f6"}, {"f3", "g1"}, {"f6", "g8"}};
+        for (final String[] move : moves) {
+            searchBoard.makeMove(findMove(searchBoard, move[0], move[1]));
+        }
+        assertThat(Long.bitCount(searchBoard.getMovedPieces() & searchBoard.getPieces(Alliance.WHITE)), is(1));
+        assertThat(Long.bitCount(searchBoard.getMovedPieces() & searchBoard.getPieces(Alliance.BLACK)), is(2));
+        //A moved piece is worth a fifth of a pawn
+        assertThat(evaluator.evaluate(searchBoard, 0),
+                is(initialScore - StandardPositionEvaluator.getMaterialScore(PieceType.PAWN) / 5));
+        for (int i = 0; i < moves.length; ++i) {
+            searchBoard.unmakeMove();
+        }
+        assertThat(searchBoard.getMovedPieces(), is(BitBoard.EMPTY));
+    }
+
+    @Test
+    public void kingIsScoredFromTheEndgameTableWhenFewPiecesAreLeft() {
+        final PositionEvaluator evaluator = new StandardPositionEvaluator();
+        final long kingOnE8 = evaluator.evaluate(createRookEnding("e8"), 0);
+        final long kingOnF8 = evaluator.evaluate(createRookEnding("f8"), 0);
+        final int e8 = BitBoard.getSquare(BoardUtils.getLocation("e8"));
+        final int f8 = BitBoard.getSquare(BoardUtils.getLocation("f8"));
+        final long scorePerUnit = StandardPositionEvaluator.getMaterialScore(PieceType.PAWN) /
+                PieceType.PAWN.getValue();
+        assertThat(kingOnE8 - kingOnF8, is(-scorePerUnit *
+                (PieceSquareTables.WHITE_KING_ENDGAME[e8] - PieceSquareTables.WHITE_KING_ENDGAME[f8])));
+    }
+
+    private static int evaluateStaticExchange(final String fen, final String from, final String to) {
+        final SearchBoard searchBoard = new SearchBoard(FenParser.createBoard(fen));
+        return searchBoard.evaluateStaticExchange(findMove(searchBoard, from, to));
+    }
+
+    private static int findMove(final SearchBoard searchBoard, final String from, final String to) {
+        return searchBoard.findLegalMove(BitBoard.getSquare(BoardUtils.getLocation(from)),
+                BitBoard.getSquare(BoardUtils.getLocation(to)), null);
+    }
+
+    //White king, rook and pawn against the black king on the given square and a pawn
+    private static SearchBoard createRookEnding(final String blackKingSquare) {
+        final Board.Builder builder = new Board.Builder();
+        builder.setGameType(GameType.CLASSIC_CHESS);
+        builder.setPiece(King.createKing("e1", Alliance.WHITE, true));
+        builder.setPiece(Rook.createRook("a1", Alliance.WHITE, true));
+        builder.setPiece(Pawn.createPawn("e2", Alliance.WHITE, true));
+        builder.setPiece(King.createKing(blackKingSquare, Alliance.BLACK, false));
+        builder.setPiece(Pawn.createPawn("e7", Alliance.BLACK, true));
+        return new SearchBoard(builder.build());
+    }
+
+    private static long countLeaves(final SearchBoard searchBoard, final int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        long leaves = 0;
+        for (final int move : searchBoard.generateLegalMoves()) {
+            searchBoard.makeMove(move);
+            leaves += countLeaves(searchBoard, depth - 1);
+            searchBoard.unmakeMove();
+        }
+        return leaves;
+    }
+}
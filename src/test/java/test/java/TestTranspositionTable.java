@@ -0,0 +1,78 @@
+package test.java;
+
+import com.igorternyuk.engine.player.ai.StandardPositionEvaluator;
+import com.igorternyuk.engine.player.ai.TimeControl;
+import com.igorternyuk.engine.player.ai.TranspositionTable;
+import org.junit.Test;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class TestTranspositionTable {
+
+    @Test
+    public void storedEntryIsFound() {
+        final TranspositionTable transpositionTable = new TranspositionTable(1);
+        final long key = 0x123456789ABCDEFL;
+        transpositionTable.store(key, 5, -1234567, TranspositionTable.LOWER_BOUND, 0x1ABC);
+        final long entry = transpositionTable.probe(key);
+        assertThat(entry != TranspositionTable.NO_ENTRY, is(true));
+        assertThat(TranspositionTable.getScore(entry), is(-1234567));
+        assertThat(TranspositionTable.getDepth(entry), is(5));
+        assertThat(TranspositionTable.getBound(entry), is(TranspositionTable.LOWER_BOUND));
+        assertThat(TranspositionTable.getMove(entry), is(0x1ABC));
+        assertThat(transpositionTable.getHits(), is(1L));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void scoreBeyondTheEntryRangeIsRejected() {
+        new TranspositionTable(1).store(42, 5, Integer.MAX_VALUE + 1L, TranspositionTable.EXACT,
+                TranspositionTable.NO_MOVE);
+    }
+
+    @Test
+    public void bucketKeepsDeepEntryAndLatestEntry() {
+        final TranspositionTable transpositionTable = new TranspositionTable(1);
+        final long bucketStride = transpositionTable.getNumberOfEntries() / 2;
+        final long deepKey = 42;
+        final long shallowKey = deepKey + bucketStride;
+        final long latestKey = deepKey + 2 * bucketStride;
+        transpositionTable.store(deepKey, 8, 100, TranspositionTable.EXACT, TranspositionTable.NO_MOVE);
+        transpositionTable.store(shallowKey, 2, 200, TranspositionTable.EXACT, TranspositionTable.NO_MOVE);
+        transpositionTable.store(latestKey, 1, 300, TranspositionTable.EXACT, TranspositionTable.NO_MOVE);
+        assertThat(TranspositionTable.getScore(transpositionTable.probe(deepKey)), is(100));
+        assertThat(TranspositionTable.getScore(transpositionTable.probe(latestKey)), is(300));
+        assertThat(transpositionTable.probe(shallowKey), is(TranspositionTable.NO_ENTRY));
+        assertThat(transpositionTable.getCollisions(), is(1L));
+    }
+
+    @Test
+    public void mateScoreFollowsTheDepthLeft() {
+        final long mateBonus = StandardPositionEvaluator.MATE_DEPTH_BONUS;
+        //Mate with one ply of depth left at the mate node, with the position of the mated side added to it
+        final long whiteMates = StandardPositionEvaluator.CHECKMATE_SCORE + mateBonus - 123456;
+        assertThat(StandardPositionEvaluator.shiftMateScore(whiteMates, 2), is(whiteMates + 2 * mateBonus));
+        assertThat(StandardPositionEvaluator.shiftMateScore(-whiteMates, 2), is(-whiteMates - 2 * mateBonus));
+        assertThat(StandardPositionEvaluator.shiftMateScore(whiteMates, -1), is(whiteMates - mateBonus));
+        //A mate further away than the depth left is still a mate
+        final long beyondTheDepthLeft = StandardPositionEvaluator.shiftMateScore(whiteMates, -3);
+        assertThat(beyondTheDepthLeft, is(whiteMates - mateBonus));
+        assertThat(StandardPositionEvaluator.isMateScore(beyondTheDepthLeft), is(true));
+        assertThat(StandardPositionEvaluator.shiftMateScore(123456, 2), is(123456L));
+    }
+
+    @Test
+    public void mateScoreIsStoredRelativeToTheNode() {
+        //A mate found three plies below a node searched with five plies left, as AlphaBeta stores and probes it
+        final TranspositionTable transpositionTable = new TranspositionTable(1);
+        final long key = 0x123456789ABCDEFL;
+        final long mateScore =
+                StandardPositionEvaluator.CHECKMATE_SCORE + 2 * StandardPositionEvaluator.MATE_DEPTH_BONUS;
+        transpositionTable.store(key, 5, StandardPositionEvaluator.shiftMateScore(mateScore,
+                TimeControl.MAX_SEARCH_DEPTH - 5), TranspositionTable.EXACT, TranspositionTable.NO_MOVE);
+        final int storedScore = TranspositionTable.getScore(transpositionTable.probe(key));
+        //Reached again with four plies left the mate node has one ply left instead of two
+        assertThat(StandardPositionEvaluator.shiftMateScore(storedScore, 4 - TimeControl.MAX_SEARCH_DEPTH),
+                is(mateScore - StandardPositionEvaluator.MATE_DEPTH_BONUS));
+    }
+}